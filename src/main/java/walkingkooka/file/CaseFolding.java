@@ -0,0 +1,72 @@
+/*
+ * Copyright 2023 Miroslav Pokorny (github.com/mP1)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package walkingkooka.file;
+
+/**
+ * Folds characters to a single case so case-insensitive comparisons may be done with simple equality. ASCII characters
+ * use a lookup table, all others are upper then lower cased which matches the rules of {@link String#equalsIgnoreCase(String)}
+ * for the vast majority of characters. Surrogate pairs must be folded as a single code point, as folding each half leaves
+ * them unchanged.
+ */
+final class CaseFolding {
+
+    /**
+     * Folds a single character.
+     */
+    static char fold(final char c) {
+        return c < ASCII_LENGTH ?
+            ASCII[c] :
+            Character.toLowerCase(
+                Character.toUpperCase(c)
+            );
+    }
+
+    /**
+     * Folds a code point, which is returned unchanged if folding would change the number of chars needed to hold it,
+     * so folded text always keeps its length.
+     */
+    static int foldCodePoint(final int codePoint) {
+        final int folded = codePoint < ASCII_LENGTH ?
+            ASCII[codePoint] :
+            Character.toLowerCase(
+                Character.toUpperCase(codePoint)
+            );
+        return Character.charCount(folded) == Character.charCount(codePoint) ?
+            folded :
+            codePoint;
+    }
+
+    private final static int ASCII_LENGTH = 128;
+
+    private final static char[] ASCII = new char[ASCII_LENGTH];
+
+    static {
+        for (char c = 0; c < ASCII_LENGTH; c++) {
+            ASCII[c] = c >= 'A' && c <= 'Z' ?
+                (char) (c - 'A' + 'a') :
+                c;
+        }
+    }
+
+    /**
+     * Stop creation
+     */
+    private CaseFolding() {
+        throw new UnsupportedOperationException();
+    }
+}
@@ -0,0 +1,220 @@
+/*
+ * Copyright 2023 Miroslav Pokorny (github.com/mP1)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package walkingkooka.file;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayDeque;
+import java.util.Objects;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+/**
+ * A {@link Spliterator} that lazily walks a directory tree one directory at a time, returning the regular files matched
+ * by the patterns. Pending directories are handed to new {@link Spliterator} when split, so parallel streams may
+ * list and process different directories on different threads. Directories that cannot hold a match are skipped
+ * when the patterns are {@link GlobPatterns}. Symbolic links are not followed.
+ */
+final class DirectorySpliterator implements Spliterator<Path> {
+
+    static DirectorySpliterator with(final Path root,
+                                     final Predicate<String> patterns) {
+        Objects.requireNonNull(root, "root");
+        Objects.requireNonNull(patterns, "patterns");
+
+        final ArrayDeque<Path> directories = new ArrayDeque<>();
+        directories.add(root);
+
+        return new DirectorySpliterator(
+            root,
+            RelativePathMatcher.with(
+                patterns,
+                root
+            ),
+            GlobPatterns.directoryFilter(patterns),
+            directories,
+            new ArrayDeque<>()
+        );
+    }
+
+    private DirectorySpliterator(final Path root,
+                                 final PathMatcher matcher,
+                                 final Predicate<String> directoryFilter,
+                                 final ArrayDeque<Path> directories,
+                                 final ArrayDeque<Path> files) {
+        this.root = root;
+        this.matcher = matcher;
+        this.directoryFilter = directoryFilter;
+        this.directories = directories;
+        this.files = files;
+    }
+
+    @Override
+    public boolean tryAdvance(final Consumer<? super Path> action) {
+        boolean advanced = false;
+
+        for (; ; ) {
+            final Path file = this.files.poll();
+            if (null != file) {
+                action.accept(file);
+                advanced = true;
+                break;
+            }
+
+            final Path directory = this.directories.poll();
+            if (null == directory) {
+                break;
+            }
+            this.list(directory);
+        }
+
+        return advanced;
+    }
+
+    /**
+     * Lists the children of the given directory, queuing any sub directories that could hold a match and matching files.
+     * Children deleted before their attributes are read, and directories below the root deleted before they are
+     * listed, are skipped. Symbolic links are never followed, so linked files and directories are also skipped.
+     */
+    private void list(final Path directory) {
+        try (final DirectoryStream<Path> children = Files.newDirectoryStream(directory)) {
+            for (final Path child : children) {
+                final BasicFileAttributes attributes;
+                try {
+                    attributes = Files.readAttributes(
+                        child,
+                        BasicFileAttributes.class,
+                        LinkOption.NOFOLLOW_LINKS
+                    );
+                } catch (final NoSuchFileException deleted) {
+                    continue;
+                }
+
+                if (attributes.isDirectory()) {
+                    if (this.directoryFilter.test(
+                        this.root.relativize(child)
+                            .toString()
+                            .replace(File.separatorChar, '/')
+                    )) {
+                        this.directories.add(child);
+                    }
+                } else {
+                    if (attributes.isRegularFile() && this.matcher.matches(child)) {
+                        this.files.add(child);
+                    }
+                }
+            }
+        } catch (final NoSuchFileException deleted) {
+            if (this.root.equals(directory)) {
+                throw new UncheckedIOException(deleted);
+            }
+        } catch (final IOException cause) {
+            throw new UncheckedIOException(cause);
+        }
+    }
+
+    /**
+     * Splits off half the pending directories, or if there are none half the pending files. A single pending directory
+     * is listed first, repeating for chains of single directories, so its children may be split. A single pending
+     * directory alongside pending files is split off by itself, so its sub-tree may be split again.
+     */
+    @Override
+    public Spliterator<Path> trySplit() {
+        final ArrayDeque<Path> directories = this.directories;
+        final ArrayDeque<Path> files = this.files;
+
+        while (1 == directories.size() && files.isEmpty()) {
+            this.list(directories.poll());
+        }
+
+        final ArrayDeque<Path> splitDirectories = new ArrayDeque<>();
+        final ArrayDeque<Path> splitFiles = new ArrayDeque<>();
+
+        final int directoryCount = directories.size();
+        if (directoryCount > 1) {
+            for (int i = directoryCount / 2; i > 0; i--) {
+                splitDirectories.add(directories.pollLast());
+            }
+        } else if (1 == directoryCount) {
+            splitDirectories.add(directories.poll());
+        } else {
+            final int fileCount = files.size();
+            if (fileCount > 1) {
+                for (int i = fileCount / 2; i > 0; i--) {
+                    splitFiles.add(files.pollLast());
+                }
+            }
+        }
+
+        return splitDirectories.isEmpty() && splitFiles.isEmpty() ?
+            null :
+            new DirectorySpliterator(
+                this.root,
+                this.matcher,
+                this.directoryFilter,
+                splitDirectories,
+                splitFiles
+            );
+    }
+
+    /**
+     * The number of files is unknown until all directories are listed.
+     */
+    @Override
+    public long estimateSize() {
+        return Long.MAX_VALUE;
+    }
+
+    @Override
+    public int characteristics() {
+        return DISTINCT | NONNULL;
+    }
+
+    private final Path root;
+
+    private final PathMatcher matcher;
+
+    /**
+     * Tests relative directory paths, directories that fail are not listed.
+     */
+    private final Predicate<String> directoryFilter;
+
+    /**
+     * Directories waiting to be listed.
+     */
+    private final ArrayDeque<Path> directories;
+
+    /**
+     * Matched files from listed directories waiting to be returned.
+     */
+    private final ArrayDeque<Path> files;
+
+    @Override
+    public String toString() {
+        return this.matcher.toString();
+    }
+}
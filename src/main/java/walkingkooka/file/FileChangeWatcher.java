@@ -0,0 +1,430 @@
+/*
+ * Copyright 2023 Miroslav Pokorny (github.com/mP1)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package walkingkooka.file;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+/**
+ * Watches a root directory and its sub-directories, collecting the changed paths matched by the patterns and delivering
+ * them in batches to a {@link Consumer}. Only directories that could hold a matching path are watched when the patterns
+ * were created by {@link Files2#globPatterns(String, walkingkooka.text.CaseSensitivity)}.
+ * <br>
+ * Events for the same path within a window are coalesced, eg a create followed by several modifies is delivered as a
+ * single create, while a create followed by a delete is dropped.
+ * <br>
+ * When the {@link WatchService} reports {@link StandardWatchEventKinds#OVERFLOW} the watched directories are rescanned
+ * and all matching files added to the batch as {@link StandardWatchEventKinds#ENTRY_MODIFY}. Deletes lost with the
+ * overflow cannot be recovered.
+ */
+final class FileChangeWatcher implements Closeable {
+
+    static FileChangeWatcher with(final Path root,
+                                  final Predicate<String> patterns,
+                                  final Duration window,
+                                  final Consumer<Map<Path, WatchEvent.Kind<Path>>> batches) throws IOException {
+        Objects.requireNonNull(root, "root");
+        Objects.requireNonNull(patterns, "patterns");
+        Objects.requireNonNull(window, "window");
+        Objects.requireNonNull(batches, "batches");
+
+        if (window.isNegative()) {
+            throw new IllegalArgumentException("Invalid window " + window + " < 0");
+        }
+
+        final FileChangeWatcher watcher = new FileChangeWatcher(
+            root,
+            patterns,
+            window,
+            batches
+        );
+        try {
+            watcher.register(
+                root,
+                null,
+                null
+            );
+        } catch (final IOException cause) {
+            watcher.close();
+            throw cause;
+        }
+        watcher.thread.start();
+        return watcher;
+    }
+
+    private FileChangeWatcher(final Path root,
+                              final Predicate<String> patterns,
+                              final Duration window,
+                              final Consumer<Map<Path, WatchEvent.Kind<Path>>> batches) throws IOException {
+        this.root = root;
+        this.matcher = RelativePathMatcher.with(
+            patterns,
+            root
+        );
+        this.directoryFilter = GlobPatterns.directoryFilter(patterns);
+        this.window = window.toNanos();
+        this.batches = batches;
+
+        this.watchService = root.getFileSystem()
+            .newWatchService();
+
+        this.thread = new Thread(
+            this::run,
+            "FileChangeWatcher " + root
+        );
+        this.thread.setDaemon(true);
+    }
+
+    /**
+     * Registers the given directory and any sub-directories that could hold a matching path. When a batch is present,
+     * existing matching files are added with the given kind as they would otherwise be missed.
+     * <br>
+     * Files and directories deleted during the walk are skipped. Any other failure to read or register a directory skips
+     * that directory only, the walk continues and the first failure is thrown once it completes, with later failures
+     * added as suppressed.
+     */
+    private void register(final Path directory,
+                          final Map<Path, WatchEvent.Kind<Path>> batch,
+                          final WatchEvent.Kind<Path> kind) throws IOException {
+        final RegisterFileVisitor visitor = new RegisterFileVisitor(
+            batch,
+            kind
+        );
+        Files.walkFileTree(
+            directory,
+            visitor
+        );
+
+        final IOException failure = visitor.failure;
+        if (null != failure) {
+            throw failure;
+        }
+    }
+
+    private final class RegisterFileVisitor extends SimpleFileVisitor<Path> {
+
+        RegisterFileVisitor(final Map<Path, WatchEvent.Kind<Path>> batch,
+                            final WatchEvent.Kind<Path> kind) {
+            this.batch = batch;
+            this.kind = kind;
+        }
+
+        @Override
+        public FileVisitResult preVisitDirectory(final Path dir,
+                                                 final BasicFileAttributes attributes) {
+            final FileChangeWatcher watcher = FileChangeWatcher.this;
+
+            FileVisitResult result = FileVisitResult.SKIP_SUBTREE;
+
+            if (watcher.root.equals(dir) ||
+                watcher.directoryFilter.test(
+                    watcher.root.relativize(dir)
+                        .toString()
+                        .replace(File.separatorChar, '/')
+                )) {
+                try {
+                    watcher.keys.put(
+                        dir.register(
+                            watcher.watchService,
+                            StandardWatchEventKinds.ENTRY_CREATE,
+                            StandardWatchEventKinds.ENTRY_DELETE,
+                            StandardWatchEventKinds.ENTRY_MODIFY
+                        ),
+                        dir
+                    );
+                    result = FileVisitResult.CONTINUE;
+                } catch (final IOException cause) {
+                    this.failed(cause);
+                }
+            }
+
+            return result;
+        }
+
+        @Override
+        public FileVisitResult visitFile(final Path file,
+                                         final BasicFileAttributes attributes) {
+            final Map<Path, WatchEvent.Kind<Path>> batch = this.batch;
+
+            if (null != batch && FileChangeWatcher.this.matcher.matches(file)) {
+                coalesce(
+                    batch,
+                    file,
+                    this.kind
+                );
+            }
+            return FileVisitResult.CONTINUE;
+        }
+
+        @Override
+        public FileVisitResult visitFileFailed(final Path file,
+                                               final IOException cause) {
+            this.failed(cause);
+            return FileVisitResult.CONTINUE;
+        }
+
+        @Override
+        public FileVisitResult postVisitDirectory(final Path dir,
+                                                  final IOException cause) {
+            if (null != cause) {
+                this.failed(cause);
+            }
+            return FileVisitResult.CONTINUE;
+        }
+
+        /**
+         * Paths deleted since they were listed are ignored, anything else is recorded.
+         */
+        private void failed(final IOException cause) {
+            if (false == cause instanceof NoSuchFileException) {
+                final IOException failure = this.failure;
+                if (null == failure) {
+                    this.failure = cause;
+                } else {
+                    failure.addSuppressed(cause);
+                }
+            }
+        }
+
+        private final Map<Path, WatchEvent.Kind<Path>> batch;
+
+        private final WatchEvent.Kind<Path> kind;
+
+        private IOException failure;
+    }
+
+    private void run() {
+        Map<Path, WatchEvent.Kind<Path>> batch = new LinkedHashMap<>();
+        long deadline = 0;
+
+        try {
+            for (; ; ) {
+                final WatchKey key = batch.isEmpty() ?
+                    this.watchService.take() :
+                    this.watchService.poll(
+                        deadline - System.nanoTime(),
+                        TimeUnit.NANOSECONDS
+                    );
+
+                if (null != key) {
+                    final boolean empty = batch.isEmpty();
+
+                    this.events(
+                        key,
+                        batch
+                    );
+
+                    // the window starts with the first event of a new batch
+                    if (empty) {
+                        deadline = System.nanoTime() + this.window;
+                    }
+                }
+
+                if (!batch.isEmpty() && System.nanoTime() - deadline >= 0) {
+                    this.deliver(batch);
+                    batch = new LinkedHashMap<>();
+                }
+            }
+        } catch (final ClosedWatchServiceException | InterruptedException stop) {
+            // closed
+        }
+    }
+
+    /**
+     * Passes the batch to the consumer. A failing consumer is reported, and watching continues with the next batch.
+     */
+    private void deliver(final Map<Path, WatchEvent.Kind<Path>> batch) {
+        try {
+            this.batches.accept(
+                Collections.unmodifiableMap(batch)
+            );
+        } catch (final RuntimeException cause) {
+            report(cause);
+        }
+    }
+
+    /**
+     * Reports a failure to the {@link Thread.UncaughtExceptionHandler} of the watching thread without stopping it.
+     */
+    private static void report(final Throwable cause) {
+        final Thread thread = Thread.currentThread();
+        thread.getUncaughtExceptionHandler()
+            .uncaughtException(
+                thread,
+                cause
+            );
+    }
+
+    @SuppressWarnings("unchecked")
+    private void events(final WatchKey key,
+                        final Map<Path, WatchEvent.Kind<Path>> batch) {
+        final Path directory = this.keys.get(key);
+
+        for (final WatchEvent<?> event : key.pollEvents()) {
+            final WatchEvent.Kind<?> kind = event.kind();
+
+            if (StandardWatchEventKinds.OVERFLOW == kind) {
+                this.overflow(batch);
+                continue;
+            }
+
+            if (null != directory) {
+                final Path path = directory.resolve((Path) event.context());
+
+                if (StandardWatchEventKinds.ENTRY_CREATE == kind && Files.isDirectory(path)) {
+                    try {
+                        this.register(
+                            path,
+                            batch,
+                            StandardWatchEventKinds.ENTRY_CREATE
+                        );
+                    } catch (final IOException cause) {
+                        report(cause);
+                    }
+                }
+
+                if (this.matcher.matches(path)) {
+                    coalesce(
+                        batch,
+                        path,
+                        (WatchEvent.Kind<Path>) kind
+                    );
+                }
+            }
+        }
+
+        if (!key.reset()) {
+            this.keys.remove(key);
+        }
+    }
+
+    /**
+     * Events were lost, rescan all directories under the root, registering any new directories and adding all matching
+     * files to the batch. Directories that could not be rescanned are reported, the others are still registered.
+     */
+    void overflow(final Map<Path, WatchEvent.Kind<Path>> batch) {
+        try {
+            this.register(
+                this.root,
+                batch,
+                StandardWatchEventKinds.ENTRY_MODIFY
+            );
+        } catch (final IOException cause) {
+            report(cause);
+        }
+    }
+
+    /**
+     * Merges a new event for a path with any previous event for the same path in the current batch.
+     */
+    static void coalesce(final Map<Path, WatchEvent.Kind<Path>> batch,
+                         final Path path,
+                         final WatchEvent.Kind<Path> kind) {
+        final WatchEvent.Kind<Path> previous = batch.get(path);
+
+        if (null == previous) {
+            batch.put(
+                path,
+                kind
+            );
+        } else {
+            if (StandardWatchEventKinds.ENTRY_CREATE == previous) {
+                // created then deleted never existed, created then modified is still a create
+                if (StandardWatchEventKinds.ENTRY_DELETE == kind) {
+                    batch.remove(path);
+                }
+            } else {
+                if (StandardWatchEventKinds.ENTRY_DELETE == previous) {
+                    // deleted then re-created
+                    if (StandardWatchEventKinds.ENTRY_CREATE == kind) {
+                        batch.put(
+                            path,
+                            StandardWatchEventKinds.ENTRY_MODIFY
+                        );
+                    }
+                } else {
+                    // modified then deleted
+                    if (StandardWatchEventKinds.ENTRY_DELETE == kind) {
+                        batch.put(
+                            path,
+                            kind
+                        );
+                    }
+                }
+            }
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        this.watchService.close();
+    }
+
+    private final Path root;
+
+    private final PathMatcher matcher;
+
+    /**
+     * Tests relative directory paths, directories that fail are not watched.
+     */
+    private final Predicate<String> directoryFilter;
+
+    /**
+     * The window in nanos, events are collected from the first event of a batch until the window expires.
+     */
+    private final long window;
+
+    private final Consumer<Map<Path, WatchEvent.Kind<Path>>> batches;
+
+    private final WatchService watchService;
+
+    /**
+     * Registering new directories happens on the watching {@link Thread}, while initial registration happens on the
+     * calling thread.
+     */
+    private final Map<WatchKey, Path> keys = new ConcurrentHashMap<>();
+
+    private final Thread thread;
+
+    @Override
+    public String toString() {
+        return this.matcher.toString();
+    }
+}
@@ -17,16 +17,28 @@
 
 package walkingkooka.file;
 
-import walkingkooka.collect.list.Lists;
-import walkingkooka.predicate.Predicates;
 import walkingkooka.reflect.PublicStaticHelper;
 import walkingkooka.text.CaseSensitivity;
 
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
 import java.nio.file.Path;
 import java.nio.file.PathMatcher;
-import java.util.List;
+import java.nio.file.WatchEvent;
+import java.time.Duration;
+import java.util.Map;
 import java.util.Objects;
+import java.util.function.Consumer;
+import java.util.function.Function;
 import java.util.function.Predicate;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 public final class Files2 implements PublicStaticHelper {
 
@@ -35,31 +47,23 @@ public final class Files2 implements PublicStaticHelper {
      */
     public static Predicate<String> globPatterns(final String fileContent,
                                                  final CaseSensitivity caseSensitivity) {
-        Objects.requireNonNull(fileContent, "fileContent");
-        Objects.requireNonNull(caseSensitivity, "caseSensitivity");
-
-        final Predicate<String>[] predicate = new Predicate[]{
-            Predicates.never()
-        };
-
-        final List<String> patterns = Lists.array();
-
-        new TextFileWithCommentsVisitor() {
-
-            @Override
-            public void visitNonEmptyLine(final String pattern) {
-                predicate[0] =
-                    predicate[0].or(
-                        caseSensitivity.globPattern(pattern)
-                    );
-                patterns.add(pattern);
-            }
-
-        }.accept(fileContent);
+        return globPatterns(
+            fileContent,
+            caseSensitivity,
+            GlobPatternsEngine.COMPILED
+        );
+    }
 
-        return Predicates.customToString(
-            predicate[0],
-            String.join(" | ", patterns) + (CaseSensitivity.INSENSITIVE == caseSensitivity ? " (INSENSITIVE)" : "")
+    /**
+     * Accepts the content of a file containing glob patterns, matching paths using the given {@link GlobPatternsEngine}.
+     */
+    public static Predicate<String> globPatterns(final String fileContent,
+                                                 final CaseSensitivity caseSensitivity,
+                                                 final GlobPatternsEngine engine) {
+        return GlobPatterns.parse(
+            fileContent,
+            caseSensitivity,
+            engine
         );
     }
 
@@ -74,6 +78,79 @@ public final class Files2 implements PublicStaticHelper {
         );
     }
 
+    /**
+     * Returns a lazy {@link Stream} of the regular files under the root whose relative path is matched by the patterns.
+     * Directories are listed one at a time as the stream is consumed and split by directory when parallel.
+     * Symbolic links are not followed, so linked files and directories are never returned. Files and directories
+     * deleted while the stream is consumed are skipped, but a missing root fails with an {@link UncheckedIOException}.
+     * {@see DirectorySpliterator}
+     */
+    public static Stream<Path> find(final Path root,
+                                    final Predicate<String> patterns) {
+        return StreamSupport.stream(
+            DirectorySpliterator.with(
+                root,
+                patterns
+            ),
+            false
+        );
+    }
+
+    /**
+     * Finds files like {@link #find(Path, Predicate)} and then visits the content of each with a new visitor, reading
+     * the file as it is visited. Visitors may call {@link TextFileWithCommentsVisitor#stop()} to avoid reading the
+     * rest of a file. Files deleted before they are opened are skipped along with their visitor. Bytes that cannot be
+     * decoded with the charset are replaced with {@code U+FFFD} rather than failing the stream, while any other read
+     * failure fails with an {@link UncheckedIOException}.
+     */
+    public static <V extends TextFileWithCommentsVisitor> Stream<V> find(final Path root,
+                                                                         final Predicate<String> patterns,
+                                                                         final Function<Path, V> visitors,
+                                                                         final Charset charset) {
+        Objects.requireNonNull(visitors, "visitors");
+        Objects.requireNonNull(charset, "charset");
+
+        return find(
+            root,
+            patterns
+        ).flatMap(
+            (path) -> visit(
+                path,
+                visitors.apply(path),
+                charset
+            )
+        );
+    }
+
+    private static <V extends TextFileWithCommentsVisitor> Stream<V> visit(final Path path,
+                                                                           final V visitor,
+                                                                           final Charset charset) {
+        // InputStreamReader replaces malformed input unlike Files.newBufferedReader which fails
+        try (final Reader reader = new InputStreamReader(Files.newInputStream(path), charset)) {
+            visitor.accept(reader);
+        } catch (final NoSuchFileException deleted) {
+            return Stream.empty();
+        } catch (final IOException cause) {
+            throw new UncheckedIOException(cause);
+        }
+        return Stream.of(visitor);
+    }
+
+    /**
+     * {@see FileChangeWatcher}
+     */
+    public static Closeable watch(final Path root,
+                                  final Predicate<String> patterns,
+                                  final Duration window,
+                                  final Consumer<Map<Path, WatchEvent.Kind<Path>>> batches) throws IOException {
+        return FileChangeWatcher.with(
+            root,
+            patterns,
+            window,
+            batches
+        );
+    }
+
     private Files2() {
         throw new UnsupportedOperationException();
     }
@@ -0,0 +1,566 @@
+/*
+ * Copyright 2023 Miroslav Pokorny (github.com/mP1)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package walkingkooka.file;
+
+import walkingkooka.collect.list.Lists;
+import walkingkooka.text.CaseSensitivity;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.function.Predicate;
+import java.util.regex.Pattern;
+
+/**
+ * The {@link Predicate} returned by {@link Files2#globPatterns(String, CaseSensitivity)}, which also keeps the original
+ * glob patterns so directories that can never hold a matching path may be skipped.
+ * <br>
+ * All patterns are packed into a few primitive arrays, rather than a {@link Predicate} graph per pattern, to keep very
+ * large numbers of pattern sets cheap to hold in memory. Patterns support '*' matching zero or more characters, '?'
+ * matching any single character and a backslash escaping the following character. Like
+ * {@link CaseSensitivity#globPattern(String)} characters are {@code char}, so '?' matches half a surrogate pair, except
+ * with {@link GlobPatternsEngine#REGEX} which matches code points.
+ */
+final class GlobPatterns implements Predicate<String> {
+
+    /**
+     * Characters that start a wildcard or escape within a glob pattern.
+     */
+    private final static String WILDCARDS = "*?\\";
+
+    private final static char STAR = '*';
+
+    private final static char ANY = '?';
+
+    private final static char ESCAPE = '\\';
+
+    static GlobPatterns parse(final String fileContent,
+                              final CaseSensitivity caseSensitivity) {
+        return parse(
+            fileContent,
+            caseSensitivity,
+            GlobPatternsEngine.COMPILED
+        );
+    }
+
+    static GlobPatterns parse(final String fileContent,
+                              final CaseSensitivity caseSensitivity,
+                              final GlobPatternsEngine engine) {
+        Objects.requireNonNull(fileContent, "fileContent");
+        Objects.requireNonNull(caseSensitivity, "caseSensitivity");
+        Objects.requireNonNull(engine, "engine");
+
+        final List<String> patterns = Lists.array();
+
+        new TextFileWithCommentsVisitor() {
+
+            @Override
+            public void visitNonEmptyLine(final String pattern) {
+                patterns.add(pattern);
+            }
+
+        }.accept(fileContent);
+
+        return new GlobPatterns(
+            patterns,
+            caseSensitivity,
+            engine
+        );
+    }
+
+    private GlobPatterns(final List<String> patterns,
+                         final CaseSensitivity caseSensitivity,
+                         final GlobPatternsEngine engine) {
+        final int count = patterns.size();
+
+        int textLength = 0;
+        for (final String pattern : patterns) {
+            textLength += pattern.length();
+        }
+
+        // insensitive patterns are folded once here and the path folded once per test, rather than comparing
+        // each character ignoring case for every pattern. Surrogate pairs are folded as a single code point.
+        final boolean folding = CaseSensitivity.INSENSITIVE == caseSensitivity;
+
+        final char[] text = new char[textLength];
+        final int[] textOffsets = new int[count + 1];
+
+        final char[] tokens = new char[textLength];
+        final long[] wildcards = new long[(textLength + 63) / 64];
+        final int[] tokenOffsets = new int[count + 1];
+
+        int textOffset = 0;
+        int tokenOffset = 0;
+
+        for (int p = 0; p < count; p++) {
+            final String pattern = patterns.get(p);
+            final int length = pattern.length();
+
+            pattern.getChars(
+                0,
+                length,
+                text,
+                textOffset
+            );
+            textOffset += length;
+            textOffsets[p + 1] = textOffset;
+
+            for (int i = 0; i < length; i++) {
+                char c = pattern.charAt(i);
+
+                if (STAR == c || ANY == c) {
+                    // consecutive stars are the same as a single star
+                    if (STAR == c && tokenOffset > tokenOffsets[p] && STAR == tokens[tokenOffset - 1] && isWildcard(wildcards, tokenOffset - 1)) {
+                        continue;
+                    }
+                    wildcards[tokenOffset >> 6] |= 1L << tokenOffset;
+                } else {
+                    if (ESCAPE == c && i + 1 < length) {
+                        i++;
+                        c = pattern.charAt(i);
+                    }
+                    if (folding) {
+                        if (Character.isHighSurrogate(c) && i + 1 < length && Character.isLowSurrogate(pattern.charAt(i + 1))) {
+                            final int codePoint = CaseFolding.foldCodePoint(
+                                Character.toCodePoint(
+                                    c,
+                                    pattern.charAt(i + 1)
+                                )
+                            );
+                            tokens[tokenOffset] = Character.highSurrogate(codePoint);
+                            tokenOffset++;
+                            i++;
+                            c = Character.lowSurrogate(codePoint);
+                        } else {
+                            c = CaseFolding.fold(c);
+                        }
+                    }
+                }
+
+                tokens[tokenOffset] = c;
+                tokenOffset++;
+            }
+
+            tokenOffsets[p + 1] = tokenOffset;
+        }
+
+        this.text = text;
+        this.textOffsets = textOffsets;
+        this.tokens = tokenOffset == textLength ?
+            tokens :
+            Arrays.copyOf(tokens, tokenOffset);
+        this.wildcards = wildcards;
+        this.tokenOffsets = tokenOffsets;
+        this.caseSensitivity = caseSensitivity;
+        this.folding = folding;
+
+        if (GlobPatternsEngine.REGEX == engine) {
+            this.regex = Optional.of(
+                GlobPatternsRegex.build(
+                    this.tokens,
+                    wildcards,
+                    tokenOffsets
+                )
+            );
+        } else {
+            this.regex = Optional.empty();
+        }
+    }
+
+    @Override
+    public boolean test(final String path) {
+        return this.test(
+            path,
+            0,
+            '/'
+        );
+    }
+
+    /**
+     * Tests the path beginning at start, treating the separator as '/'. This avoids creating a relative path
+     * {@link String} for each test.
+     */
+    boolean test(final String path,
+                 final int start,
+                 final char separator) {
+        final int length = path.length() - start;
+
+        final Buffer buffer = BUFFER.get();
+        buffer.ensureCapacity(length);
+        final char[] chars = buffer.chars;
+
+        // copy and fold the path a single time for all patterns
+        final boolean folding = this.folding;
+        for (int i = 0; i < length; i++) {
+            char c = path.charAt(start + i);
+            if (separator == c) {
+                c = '/';
+            } else {
+                if (folding) {
+                    if (Character.isHighSurrogate(c) && i + 1 < length && Character.isLowSurrogate(path.charAt(start + i + 1))) {
+                        final int codePoint = CaseFolding.foldCodePoint(
+                            Character.toCodePoint(
+                                c,
+                                path.charAt(start + i + 1)
+                            )
+                        );
+                        chars[i] = Character.highSurrogate(codePoint);
+                        i++;
+                        c = Character.lowSurrogate(codePoint);
+                    } else {
+                        c = CaseFolding.fold(c);
+                    }
+                }
+            }
+            chars[i] = c;
+        }
+
+        boolean match = false;
+
+        if (this.regex.isPresent()) {
+            // a new Matcher per test, as per thread Matchers for every instance would outlive the instance itself
+            match = this.regex.get()
+                .matcher(buffer)
+                .matches();
+        } else {
+            final int count = this.count();
+
+            for (int p = 0; p < count; p++) {
+                if (this.matches(p, chars, length)) {
+                    match = true;
+                    break;
+                }
+            }
+        }
+
+        return match;
+    }
+
+    /**
+     * A per thread buffer holding the path being tested, so testing does not create any garbage.
+     */
+    private final static ThreadLocal<Buffer> BUFFER = ThreadLocal.withInitial(Buffer::new);
+
+    /**
+     * A growable char array, which is also a {@link CharSequence} so it may be matched by a regex {@link java.util.regex.Matcher}.
+     */
+    private final static class Buffer implements CharSequence {
+
+        void ensureCapacity(final int length) {
+            if (this.chars.length < length) {
+                this.chars = new char[length * 2];
+            }
+            this.length = length;
+        }
+
+        @Override
+        public int length() {
+            return this.length;
+        }
+
+        @Override
+        public char charAt(final int index) {
+            return this.chars[index];
+        }
+
+        @Override
+        public CharSequence subSequence(final int start,
+                                        final int end) {
+            return new String(
+                this.chars,
+                start,
+                end - start
+            );
+        }
+
+        char[] chars = new char[256];
+
+        int length;
+
+        @Override
+        public String toString() {
+            return new String(
+                this.chars,
+                0,
+                this.length
+            );
+        }
+    }
+
+    /**
+     * Matches a single pattern against the path. When a literal fails to match after a star, matching restarts one
+     * character further along from that star, which is the only backtracking needed for '*' and '?'.
+     */
+    private boolean matches(final int pattern,
+                            final char[] path,
+                            final int length) {
+        final char[] tokens = this.tokens;
+        final long[] wildcards = this.wildcards;
+        final int end = this.tokenOffsets[pattern + 1];
+
+        int t = this.tokenOffsets[pattern];
+        int i = 0;
+        int starToken = -1;
+        int starIndex = 0;
+
+        while (i < length) {
+            if (t < end) {
+                final char token = tokens[t];
+
+                if (isWildcard(wildcards, t)) {
+                    t++;
+                    if (STAR == token) {
+                        starToken = t;
+                        starIndex = i;
+                    } else {
+                        i++;
+                    }
+                    continue;
+                }
+                if (token == path[i]) {
+                    t++;
+                    i++;
+                    continue;
+                }
+            }
+
+            if (-1 == starToken) {
+                return false;
+            }
+
+            // let the last star consume one more character
+            t = starToken;
+            starIndex++;
+            i = starIndex;
+        }
+
+        // only trailing stars may remain
+        while (t < end && isWildcard(wildcards, t) && STAR == tokens[t]) {
+            t++;
+        }
+        return t == end;
+    }
+
+    static boolean isWildcard(final long[] wildcards,
+                              final int token) {
+        return 0 != (wildcards[token >> 6] & (1L << token));
+    }
+
+    /**
+     * Returns a {@link Predicate} that tests relative directories, skipping those that cannot hold a match when the patterns
+     * are {@link GlobPatterns}, otherwise all directories are accepted.
+     */
+    static Predicate<String> directoryFilter(final Predicate<String> patterns) {
+        return patterns instanceof GlobPatterns ?
+            ((GlobPatterns) patterns)::canMatchUnder :
+            (d) -> true;
+    }
+
+    /**
+     * Returns true if a path under the given relative directory, using '/' as the separator, could be matched by any pattern.
+     * Only the literal text before the first wildcard of each pattern is considered, so this may return true for
+     * directories that do not actually hold any matches, but never false for a directory that does.
+     */
+    boolean canMatchUnder(final String directory) {
+        final int directoryLength = directory.length();
+
+        // the directory with a trailing slash unless it is the root
+        final int prefixLength = 0 == directoryLength ?
+            0 :
+            directoryLength + 1;
+        final boolean ignoreCase = CaseSensitivity.INSENSITIVE == this.caseSensitivity;
+        final char[] text = this.text;
+        final int count = this.count();
+
+        boolean match = false;
+
+        for (int p = 0; p < count; p++) {
+            final int start = this.textOffsets[p];
+            final int patternLength = this.textOffsets[p + 1] - start;
+            final int literalLength = this.literalLength(p);
+
+            // a pattern without any wildcards must be longer than the directory to match a path under it.
+            if (literalLength == patternLength && literalLength <= prefixLength) {
+                continue;
+            }
+
+            final int compare = Math.min(
+                prefixLength,
+                literalLength
+            );
+
+            int i = 0;
+            while (i < compare) {
+                final char c = directoryCharAt(
+                    directory,
+                    i
+                );
+                final char other = text[start + i];
+
+                // surrogate pairs are folded as a single code point
+                if (ignoreCase && Character.isHighSurrogate(c) && Character.isHighSurrogate(other) && i + 1 < compare) {
+                    final char low = directoryCharAt(
+                        directory,
+                        i + 1
+                    );
+                    final char otherLow = text[start + i + 1];
+
+                    if (Character.isLowSurrogate(low) && Character.isLowSurrogate(otherLow)) {
+                        if (CaseFolding.foldCodePoint(Character.toCodePoint(c, low)) != CaseFolding.foldCodePoint(Character.toCodePoint(other, otherLow))) {
+                            break;
+                        }
+                        i += 2;
+                        continue;
+                    }
+                }
+
+                if (c != other && (false == ignoreCase || CaseFolding.fold(c) != CaseFolding.fold(other))) {
+                    break;
+                }
+                i++;
+            }
+
+            if (i == compare) {
+                match = true;
+                break;
+            }
+        }
+
+        return match;
+    }
+
+    /**
+     * Returns the character at the index of the directory followed by a slash.
+     */
+    private static char directoryCharAt(final String directory,
+                                        final int index) {
+        return index < directory.length() ?
+            directory.charAt(index) :
+            '/';
+    }
+
+    /**
+     * Returns the number of characters before the first wildcard or the pattern length if it has none.
+     */
+    private int literalLength(final int pattern) {
+        final char[] text = this.text;
+        final int start = this.textOffsets[pattern];
+        final int end = this.textOffsets[pattern + 1];
+
+        int i = start;
+        while (i < end && WILDCARDS.indexOf(text[i]) == -1) {
+            i++;
+        }
+        return i - start;
+    }
+
+    /**
+     * The number of patterns.
+     */
+    int count() {
+        return this.textOffsets.length - 1;
+    }
+
+    /**
+     * An estimate of the heap bytes used by this {@link GlobPatterns}, counting object and array headers as 16 bytes
+     * and each reference as 4 bytes, as with compressed oops. Any regex for {@link GlobPatternsEngine#REGEX} is not
+     * included.
+     */
+    long sizeOf() {
+        return 16 + 8 * 4 + 1 + // this
+            16 + this.text.length * 2L +
+            16 + this.textOffsets.length * 4L +
+            16 + this.tokens.length * 2L +
+            16 + this.wildcards.length * 8L +
+            16 + this.tokenOffsets.length * 4L;
+    }
+
+    /**
+     * The original text of all patterns, used by {@link #canMatchUnder(String)} and {@link #toString()}.
+     */
+    private final char[] text;
+
+    /**
+     * The start of each pattern within {@link #text} with a final extra entry holding the end of the last pattern.
+     */
+    private final int[] textOffsets;
+
+    /**
+     * The compiled patterns, either literal characters which have been folded for insensitive patterns or
+     * {@link #STAR} or {@link #ANY} when the matching bit in {@link #wildcards} is set.
+     */
+    private final char[] tokens;
+
+    /**
+     * A bit set, with each bit marking whether the matching entry in {@link #tokens} is a wildcard or literal.
+     */
+    private final long[] wildcards;
+
+    /**
+     * The start of each pattern within {@link #tokens} with a final extra entry holding the end of the last pattern.
+     */
+    private final int[] tokenOffsets;
+
+    private final CaseSensitivity caseSensitivity;
+
+    /**
+     * When true the compiled patterns were folded and each tested path must also be folded.
+     */
+    private final boolean folding;
+
+    /**
+     * The single regex holding all patterns for {@link GlobPatternsEngine#REGEX}.
+     */
+    Optional<Pattern> regex() {
+        return this.regex;
+    }
+
+    private final Optional<Pattern> regex;
+
+    /**
+     * Built on demand as it is rarely needed.
+     */
+    @Override
+    public String toString() {
+        if (null == this.toString) {
+            final StringBuilder b = new StringBuilder();
+            final int count = this.count();
+
+            for (int p = 0; p < count; p++) {
+                if (p > 0) {
+                    b.append(" | ");
+                }
+                final int start = this.textOffsets[p];
+                b.append(
+                    this.text,
+                    start,
+                    this.textOffsets[p + 1] - start
+                );
+            }
+            if (CaseSensitivity.INSENSITIVE == this.caseSensitivity) {
+                b.append(" (INSENSITIVE)");
+            }
+
+            this.toString = b.toString();
+        }
+        return this.toString;
+    }
+
+    private String toString;
+}
@@ -0,0 +1,41 @@
+/*
+ * Copyright 2023 Miroslav Pokorny (github.com/mP1)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package walkingkooka.file;
+
+import walkingkooka.text.CaseSensitivity;
+
+/**
+ * Selects how the {@link java.util.function.Predicate} returned by
+ * {@link Files2#globPatterns(String, CaseSensitivity, GlobPatternsEngine)} matches paths, so the engines may be
+ * benchmarked against each other.
+ */
+public enum GlobPatternsEngine {
+
+    /**
+     * Each pattern is compiled into tokens packed into primitive arrays and tried in turn. This is the default.
+     */
+    COMPILED,
+
+    /**
+     * All patterns are combined into a single {@link java.util.regex.Pattern}, with common prefixes factored out, so
+     * each path is scanned by one regular expression. Regular expressions match code points, so unlike
+     * {@link #COMPILED} '?' matches a whole surrogate pair and '*' never ends within one, which may give different
+     * results for paths with characters outside the Basic Multilingual Plane.
+     */
+    REGEX
+}
@@ -0,0 +1,180 @@
+/*
+ * Copyright 2023 Miroslav Pokorny (github.com/mP1)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package walkingkooka.file;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * Builds a single {@link Pattern} from compiled glob patterns. Patterns are first added to a trie so common prefixes
+ * appear once, with each alternation written as an atomic group. Every alternative ends with an end of input anchor,
+ * so once an alternative matches the whole path matched, and the atomic group only stops pointless backtracking
+ * into the other alternatives. A trailing '*' is written as a possessive quantifier for the same reason.
+ */
+final class GlobPatternsRegex {
+
+    /**
+     * Trie keys for the two wildcards, literals use their code point.
+     */
+    private final static int STAR = -1;
+
+    private final static int ANY = -2;
+
+    static Pattern build(final char[] tokens,
+                         final long[] wildcards,
+                         final int[] tokenOffsets) {
+        final Node root = new Node();
+        final int count = tokenOffsets.length - 1;
+
+        for (int p = 0; p < count; p++) {
+            Node node = root;
+
+            final int end = tokenOffsets[p + 1];
+            for (int t = tokenOffsets[p]; t < end; t++) {
+                final char token = tokens[t];
+                final int key;
+
+                if (GlobPatterns.isWildcard(wildcards, t)) {
+                    key = '*' == token ? STAR : ANY;
+                } else {
+                    // regex matches code points, so a surrogate pair must stay together as a single key
+                    if (Character.isHighSurrogate(token) &&
+                        t + 1 < end &&
+                        false == GlobPatterns.isWildcard(wildcards, t + 1) &&
+                        Character.isLowSurrogate(tokens[t + 1])) {
+                        t++;
+                        key = Character.toCodePoint(
+                            token,
+                            tokens[t]
+                        );
+                    } else {
+                        key = token;
+                    }
+                }
+
+                node = node.child(key);
+            }
+
+            node.terminal = true;
+        }
+
+        final StringBuilder regex = new StringBuilder();
+        if (root.isEmpty()) {
+            regex.append("(?!)"); // no patterns never match
+        } else {
+            root.appendTo(regex);
+        }
+
+        return Pattern.compile(
+            regex.toString(),
+            Pattern.DOTALL
+        );
+    }
+
+    private final static class Node {
+
+        Node child(final int key) {
+            Node child = this.children.get(key);
+            if (null == child) {
+                child = new Node();
+                this.children.put(key, child);
+            }
+            return child;
+        }
+
+        boolean isEmpty() {
+            return this.children.isEmpty() && false == this.terminal;
+        }
+
+        boolean isLeaf() {
+            return this.children.isEmpty() && this.terminal;
+        }
+
+        void appendTo(final StringBuilder regex) {
+            final boolean group = this.children.size() + (this.terminal ? 1 : 0) > 1;
+            if (group) {
+                regex.append("(?>");
+            }
+
+            boolean first = true;
+            if (this.terminal) {
+                regex.append("\\z");
+                first = false;
+            }
+
+            for (final Map.Entry<Integer, Node> keyAndChild : this.children.entrySet()) {
+                if (false == first) {
+                    regex.append('|');
+                }
+                first = false;
+
+                final int key = keyAndChild.getKey();
+                final Node child = keyAndChild.getValue();
+
+                switch (key) {
+                    case STAR:
+                        regex.append(
+                            child.isLeaf() ?
+                                ".*+" :
+                                ".*"
+                        );
+                        break;
+                    case ANY:
+                        regex.append('.');
+                        break;
+                    default:
+                        appendLiteral(
+                            key,
+                            regex
+                        );
+                        break;
+                }
+
+                child.appendTo(regex);
+            }
+
+            if (group) {
+                regex.append(')');
+            }
+        }
+
+        /**
+         * Ascii letters and digits and all non ascii characters are never special, while a backslash before any other
+         * ascii character makes it a literal.
+         */
+        private static void appendLiteral(final int codePoint,
+                                          final StringBuilder regex) {
+            if (codePoint < 128 && false == Character.isLetterOrDigit(codePoint)) {
+                regex.append('\\');
+            }
+            regex.appendCodePoint(codePoint);
+        }
+
+        private final Map<Integer, Node> children = new LinkedHashMap<>();
+
+        private boolean terminal;
+    }
+
+    /**
+     * Stop creation
+     */
+    private GlobPatternsRegex() {
+        throw new UnsupportedOperationException();
+    }
+}
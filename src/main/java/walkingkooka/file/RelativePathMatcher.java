@@ -40,6 +40,8 @@ final class RelativePathMatcher implements PathMatcher {
                                 final Path parent) {
         this.patterns = patterns;
         this.parent = parent;
+        this.parentLength = parent.toString()
+            .length();
     }
 
     @Override
@@ -47,16 +49,43 @@ final class RelativePathMatcher implements PathMatcher {
         final Path parent = this.parent;
 
         return test.startsWith(parent) &&
-            this.patterns.test(
-                parent.relativize(test)
-                    .toString()
-                    .replace(File.separatorChar, '/')
-            );
+            (this.patterns instanceof GlobPatterns ?
+                this.matchesGlobPatterns(test) :
+                this.patterns.test(
+                    parent.relativize(test)
+                        .toString()
+                        .replace(File.separatorChar, '/')
+                ));
+    }
+
+    /**
+     * {@link GlobPatterns} can test the path after the parent directly, which avoids the garbage created by
+     * {@link Path#relativize(Path)} and replacing separators.
+     */
+    private boolean matchesGlobPatterns(final Path test) {
+        final String path = test.toString();
+        final int length = path.length();
+
+        int start = this.parentLength;
+        if (start > 0 && start < length && File.separatorChar == path.charAt(start)) {
+            start++;
+        }
+
+        return ((GlobPatterns) this.patterns).test(
+            path,
+            start,
+            File.separatorChar
+        );
     }
 
     private final Predicate<String> patterns;
     private final Path parent;
 
+    /**
+     * The length of the parent path as a {@link String}, which is where the relative path begins.
+     */
+    private final int parentLength;
+
     @Override
     public String toString() {
         return this.parent + " " + this.patterns;
@@ -5,7 +5,7 @@ import walkingkooka.visit.Visitor;
 
 import java.io.BufferedReader;
 import java.io.IOException;
-import java.io.StringReader;
+import java.io.Reader;
 import java.util.Objects;
 
 /**
@@ -21,28 +21,87 @@ public abstract class TextFileWithCommentsVisitor extends Visitor<String> {
     public final void accept(final String text) {
         Objects.requireNonNull(text, "text");
 
-        try (final BufferedReader reader = new BufferedReader(new StringReader(text))) {
-            for (; ; ) {
-                final String line = reader.readLine();
-                if (null == line) {
-                    break; // EOF
+        this.stopped = false;
+
+        // lines are found directly rather than using a BufferedReader which allocates a large buffer for each accept
+        final int length = text.length();
+        int start = 0;
+
+        while (start < length && false == this.stopped) {
+            int end = start;
+            char c = 0;
+
+            while (end < length) {
+                c = text.charAt(end);
+                if ('\n' == c || '\r' == c) {
+                    break;
                 }
-                this.traverse(line);
+                end++;
             }
 
-        } catch (final IOException never) {
-            throw new Error(never);
+            this.traverse(
+                text.substring(
+                    start,
+                    end
+                )
+            );
+
+            start = end + 1;
+            if ('\r' == c && start < length && '\n' == text.charAt(start)) {
+                start++;
+            }
         }
     }
 
+    /**
+     * Reads and visits lines from the given {@link Reader} until EOF or {@link #stop()} is called. The reader is not closed.
+     * A {@link BufferedReader} is read directly, so after a stop it is positioned at the line after the last visited line.
+     * Any other {@link Reader} is wrapped in a new {@link BufferedReader}, which may read ahead, so the position of the
+     * given {@link Reader} after a stop is undefined.
+     */
+    public final void accept(final Reader reader) throws IOException {
+        Objects.requireNonNull(reader, "reader");
+
+        this.accept0(reader);
+    }
+
+    private void accept0(final Reader reader) throws IOException {
+        final BufferedReader bufferedReader = reader instanceof BufferedReader ?
+            (BufferedReader) reader :
+            new BufferedReader(reader);
+
+        this.stopped = false;
+
+        while (false == this.stopped) {
+            final String line = bufferedReader.readLine();
+            if (null == line) {
+                break; // EOF
+            }
+            this.traverse(line);
+        }
+    }
+
+    /**
+     * May be called by any visit method to stop visiting any more lines. {@link #endVisitLine(String)} is still called
+     * for the current line.
+     */
+    protected final void stop() {
+        this.stopped = true;
+    }
+
+    /**
+     * Set by {@link #stop()} and cleared at the start of each accept.
+     */
+    private boolean stopped;
+
     private void traverse(final String line) {
-        if (Visiting.CONTINUE == this.startVisitLine(line)) {
+        if (Visiting.CONTINUE == this.startVisitLine(line) && false == this.stopped) {
             final String trimmed = line.trim();
             if (trimmed.length() == 0) {
                 this.visitEmptyLine();
             } else {
-                if (trimmed.startsWith("#")) {
-                    this.visitComment(trimmed.substring(1).trim());
+                if ('#' == trimmed.charAt(0)) {
+                    this.visitComment(comment(trimmed));
                 } else {
                     this.visitNonEmptyLine(trimmed); // TODO add support for un-escaping...
                 }
@@ -51,6 +110,19 @@ public abstract class TextFileWithCommentsVisitor extends Visitor<String> {
         this.endVisitLine(line);
     }
 
+    /**
+     * Returns the comment text after the leading hash, trimming only the start as the line has already been trimmed.
+     */
+    private static String comment(final String trimmed) {
+        final int length = trimmed.length();
+
+        int start = 1;
+        while (start < length && trimmed.charAt(start) <= ' ') {
+            start++;
+        }
+        return trimmed.substring(start);
+    }
+
     public Visiting startVisitLine(final String line) {
         return Visiting.CONTINUE;
     }
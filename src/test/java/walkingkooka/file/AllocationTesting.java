@@ -0,0 +1,63 @@
+/*
+ * Copyright 2023 Miroslav Pokorny (github.com/mP1)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package walkingkooka.file;
+
+import org.junit.jupiter.api.Assumptions;
+import walkingkooka.test.Testing;
+
+import java.lang.management.ManagementFactory;
+
+/**
+ * Mixin interface that measures the average bytes allocated by a call, failing if it exceeds a budget.
+ */
+public interface AllocationTesting extends Testing {
+
+    int ALLOCATION_WARMUP = 20_000;
+
+    int ALLOCATION_ITERATIONS = 100_000;
+
+    default void allocatedBytesAndCheck(final Runnable call,
+                                        final long budget) {
+        final com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        Assumptions.assumeTrue(
+            threads.isThreadAllocatedMemorySupported() && threads.isThreadAllocatedMemoryEnabled(),
+            "ThreadMXBean allocated memory unsupported"
+        );
+
+        // give the JIT a chance to compile and remove any allocations it can
+        for (int i = 0; i < ALLOCATION_WARMUP; i++) {
+            call.run();
+        }
+
+        final long threadId = Thread.currentThread()
+            .getId();
+        final long before = threads.getThreadAllocatedBytes(threadId);
+
+        for (int i = 0; i < ALLOCATION_ITERATIONS; i++) {
+            call.run();
+        }
+
+        final long perCall = (threads.getThreadAllocatedBytes(threadId) - before) / ALLOCATION_ITERATIONS;
+
+        this.checkEquals(
+            true,
+            perCall <= budget,
+            () -> "allocated " + perCall + " bytes per call, budget " + budget
+        );
+    }
+}
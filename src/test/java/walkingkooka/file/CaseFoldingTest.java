@@ -0,0 +1,132 @@
+/*
+ * Copyright 2023 Miroslav Pokorny (github.com/mP1)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package walkingkooka.file;
+
+import org.junit.jupiter.api.Test;
+import walkingkooka.reflect.ClassTesting;
+import walkingkooka.reflect.JavaVisibility;
+
+public final class CaseFoldingTest implements ClassTesting<CaseFolding> {
+
+    @Test
+    public void testFoldCharAscii() {
+        for (char c = 0; c < 128; c++) {
+            this.checkEquals(
+                Character.toLowerCase(c),
+                CaseFolding.fold(c),
+                () -> "fold " + Integer.toHexString(c)
+            );
+        }
+    }
+
+    @Test
+    public void testFoldCharNonAscii() {
+        this.checkEquals(
+            'ä',
+            CaseFolding.fold('Ä')
+        );
+    }
+
+    @Test
+    public void testFoldCharNonAsciiLower() {
+        this.checkEquals(
+            'ä',
+            CaseFolding.fold('ä')
+        );
+    }
+
+    @Test
+    public void testFoldCharMatchesEqualsIgnoreCase() {
+        for (char c = 0; c < Character.MAX_VALUE; c++) {
+            final String folded = String.valueOf(CaseFolding.fold(c));
+            final String text = String.valueOf(c);
+
+            this.checkEquals(
+                true,
+                folded.equalsIgnoreCase(text),
+                () -> "fold " + Integer.toHexString(text.charAt(0))
+            );
+        }
+    }
+
+    @Test
+    public void testFoldCodePointAscii() {
+        this.checkEquals(
+            (int) 'a',
+            CaseFolding.foldCodePoint('A')
+        );
+    }
+
+    @Test
+    public void testFoldCodePointNonAscii() {
+        this.checkEquals(
+            (int) 'ä',
+            CaseFolding.foldCodePoint('Ä')
+        );
+    }
+
+    @Test
+    public void testFoldCodePointSupplementary() {
+        // DESERET CAPITAL LONG I
+        this.checkEquals(
+            0x10428,
+            CaseFolding.foldCodePoint(0x10400)
+        );
+    }
+
+    @Test
+    public void testFoldCodePointSupplementaryLower() {
+        this.checkEquals(
+            0x10428,
+            CaseFolding.foldCodePoint(0x10428)
+        );
+    }
+
+    @Test
+    public void testFoldCodePointSupplementaryWithoutCase() {
+        this.checkEquals(
+            0x1F600,
+            CaseFolding.foldCodePoint(0x1F600)
+        );
+    }
+
+    @Test
+    public void testFoldCodePointKeepsCharCount() {
+        for (int codePoint = 0; codePoint <= Character.MAX_CODE_POINT; codePoint++) {
+            final int c = codePoint;
+
+            this.checkEquals(
+                Character.charCount(c),
+                Character.charCount(CaseFolding.foldCodePoint(c)),
+                () -> "fold " + Integer.toHexString(c)
+            );
+        }
+    }
+
+    // ClassTesting....................................................................................................
+
+    @Override
+    public Class<CaseFolding> type() {
+        return CaseFolding.class;
+    }
+
+    @Override
+    public JavaVisibility typeVisibility() {
+        return JavaVisibility.PACKAGE_PRIVATE;
+    }
+}
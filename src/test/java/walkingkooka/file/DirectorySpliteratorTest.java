@@ -0,0 +1,304 @@
+/*
+ * Copyright 2023 Miroslav Pokorny (github.com/mP1)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package walkingkooka.file;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import walkingkooka.ToStringTesting;
+import walkingkooka.collect.set.Sets;
+import walkingkooka.reflect.ClassTesting;
+import walkingkooka.reflect.JavaVisibility;
+import walkingkooka.text.CaseSensitivity;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.function.Predicate;
+
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public final class DirectorySpliteratorTest implements ClassTesting<DirectorySpliterator>,
+    ToStringTesting<DirectorySpliterator> {
+
+    @TempDir
+    Path root;
+
+    @Test
+    public void testWithNullRootFails() {
+        assertThrows(
+            NullPointerException.class,
+            () -> DirectorySpliterator.with(
+                null,
+                this.patterns()
+            )
+        );
+    }
+
+    @Test
+    public void testWithNullPatternsFails() {
+        assertThrows(
+            NullPointerException.class,
+            () -> DirectorySpliterator.with(
+                this.root,
+                null
+            )
+        );
+    }
+
+    @Test
+    public void testTryAdvanceMissingRootFails() {
+        assertThrows(
+            UncheckedIOException.class,
+            () -> DirectorySpliterator.with(
+                this.root.resolve("missing"),
+                this.patterns()
+            ).tryAdvance((p) -> {
+            })
+        );
+    }
+
+    @Test
+    public void testTryAdvanceEmpty() {
+        this.checkEquals(
+            false,
+            DirectorySpliterator.with(
+                this.root,
+                this.patterns()
+            ).tryAdvance((p) -> {
+                throw new UnsupportedOperationException();
+            })
+        );
+    }
+
+    @Test
+    public void testTryAdvance() throws IOException {
+        final Set<Path> expected = this.createFiles();
+
+        this.checkEquals(
+            expected,
+            this.collect(
+                DirectorySpliterator.with(
+                    this.root,
+                    this.patterns()
+                )
+            )
+        );
+    }
+
+    @Test
+    public void testTrySplit() throws IOException {
+        final Set<Path> expected = this.createFiles();
+
+        final DirectorySpliterator spliterator = DirectorySpliterator.with(
+            this.root,
+            this.patterns()
+        );
+        final Spliterator<Path> split = spliterator.trySplit();
+        assertNotNull(split, "split");
+
+        final Set<Path> paths = this.collect(spliterator);
+        final Set<Path> splitPaths = this.collect(split);
+
+        this.checkEquals(
+            false,
+            paths.isEmpty(),
+            "spliterator should have some paths"
+        );
+        this.checkEquals(
+            false,
+            splitPaths.isEmpty(),
+            "split should have some paths"
+        );
+
+        paths.addAll(splitPaths);
+        this.checkEquals(
+            expected,
+            paths
+        );
+    }
+
+    @Test
+    public void testTrySplitNestedDirectories() throws IOException {
+        final Path one = Files.writeString(
+            Files.createDirectories(this.root.resolve("src/a")).resolve("One.java"),
+            ""
+        );
+        final Path two = Files.writeString(
+            Files.createDirectories(this.root.resolve("src/a/b")).resolve("Two.java"),
+            ""
+        );
+        final Path three = Files.writeString(
+            Files.createDirectories(this.root.resolve("src/a/b/c")).resolve("Three.java"),
+            ""
+        );
+
+        final DirectorySpliterator spliterator = DirectorySpliterator.with(
+            this.root,
+            this.patterns()
+        );
+
+        // src/a holds one file and one directory, the directory is split off
+        final Spliterator<Path> split = spliterator.trySplit();
+        assertNotNull(split, "split");
+
+        // src/a/b also holds one file and one directory
+        final Spliterator<Path> splitSplit = split.trySplit();
+        assertNotNull(splitSplit, "split of split");
+
+        this.checkEquals(
+            Sets.of(one),
+            this.collect(spliterator),
+            "spliterator"
+        );
+        this.checkEquals(
+            Sets.of(two),
+            this.collect(split),
+            "split"
+        );
+        this.checkEquals(
+            Sets.of(three),
+            this.collect(splitSplit),
+            "split of split"
+        );
+    }
+
+    @Test
+    public void testDirectoryDeletedBeforeListingSkipped() throws IOException {
+        final Set<Path> expected = this.createFiles();
+
+        final DirectorySpliterator spliterator = DirectorySpliterator.with(
+            this.root,
+            this.patterns()
+        );
+        final Spliterator<Path> split = spliterator.trySplit();
+        assertNotNull(split, "split");
+
+        // src/module0 is pending but not yet listed
+        final Path deleted = this.root.resolve("src/module0");
+        final Path deletedFile = deleted.resolve("File0.java");
+        Files.delete(deletedFile);
+        Files.delete(deleted.resolve("File0.txt"));
+        Files.delete(deleted);
+        expected.remove(deletedFile);
+
+        final Set<Path> paths = this.collect(spliterator);
+        paths.addAll(this.collect(split));
+
+        this.checkEquals(
+            expected,
+            paths
+        );
+    }
+
+    @Test
+    public void testSymbolicLinkNotFollowed() throws IOException {
+        final Set<Path> expected = this.createFiles();
+
+        final Path target = Files.writeString(this.root.resolve("Target.java"), "");
+        Files.createSymbolicLink(
+            this.root.resolve("src/Link.java"),
+            target
+        );
+
+        this.checkEquals(
+            expected,
+            this.collect(
+                DirectorySpliterator.with(
+                    this.root,
+                    this.patterns()
+                )
+            )
+        );
+    }
+
+    @Test
+    public void testTrySplitNothing() {
+        assertNull(
+            DirectorySpliterator.with(
+                this.root,
+                this.patterns()
+            ).trySplit()
+        );
+    }
+
+    /**
+     * Creates several directories each holding a matching and non matching file, along with an ignored directory, returning
+     * the matching files.
+     */
+    private Set<Path> createFiles() throws IOException {
+        final Set<Path> matches = Sets.sorted();
+
+        for (int i = 0; i < 4; i++) {
+            final Path directory = Files.createDirectories(this.root.resolve("src/module" + i));
+
+            final Path match = directory.resolve("File" + i + ".java");
+            Files.writeString(match, "");
+            matches.add(match);
+
+            Files.writeString(directory.resolve("File" + i + ".txt"), "");
+        }
+
+        final Path ignored = Files.createDirectories(this.root.resolve("target"));
+        Files.writeString(ignored.resolve("Ignored.java"), "");
+
+        return matches;
+    }
+
+    private Set<Path> collect(final Spliterator<Path> spliterator) {
+        final Set<Path> paths = Sets.sorted();
+        spliterator.forEachRemaining(paths::add);
+        return paths;
+    }
+
+    private Predicate<String> patterns() {
+        return Files2.globPatterns(
+            "src/*.java",
+            CaseSensitivity.SENSITIVE
+        );
+    }
+
+    // toString........................................................................................................
+
+    @Test
+    public void testToString() {
+        this.toStringAndCheck(
+            DirectorySpliterator.with(
+                this.root,
+                this.patterns()
+            ),
+            this.root + " src/*.java"
+        );
+    }
+
+    // ClassTesting....................................................................................................
+
+    @Override
+    public Class<DirectorySpliterator> type() {
+        return DirectorySpliterator.class;
+    }
+
+    @Override
+    public JavaVisibility typeVisibility() {
+        return JavaVisibility.PACKAGE_PRIVATE;
+    }
+}
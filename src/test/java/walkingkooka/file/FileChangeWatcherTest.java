@@ -0,0 +1,466 @@
+/*
+ * Copyright 2023 Miroslav Pokorny (github.com/mP1)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package walkingkooka.file;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import walkingkooka.collect.map.Maps;
+import walkingkooka.reflect.ClassTesting;
+import walkingkooka.reflect.JavaVisibility;
+import walkingkooka.text.CaseSensitivity;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public final class FileChangeWatcherTest implements ClassTesting<FileChangeWatcher> {
+
+    private final static Duration WINDOW = Duration.ofMillis(250);
+
+    @TempDir
+    Path root;
+
+    @Test
+    public void testWithNullRootFails() {
+        assertThrows(
+            NullPointerException.class,
+            () -> FileChangeWatcher.with(
+                null,
+                this.patterns(),
+                WINDOW,
+                (b) -> {
+                }
+            )
+        );
+    }
+
+    @Test
+    public void testWithNullPatternsFails() {
+        assertThrows(
+            NullPointerException.class,
+            () -> FileChangeWatcher.with(
+                this.root,
+                null,
+                WINDOW,
+                (b) -> {
+                }
+            )
+        );
+    }
+
+    @Test
+    public void testWithNullWindowFails() {
+        assertThrows(
+            NullPointerException.class,
+            () -> FileChangeWatcher.with(
+                this.root,
+                this.patterns(),
+                null,
+                (b) -> {
+                }
+            )
+        );
+    }
+
+    @Test
+    public void testWithNegativeWindowFails() {
+        assertThrows(
+            IllegalArgumentException.class,
+            () -> FileChangeWatcher.with(
+                this.root,
+                this.patterns(),
+                Duration.ofMillis(-1),
+                (b) -> {
+                }
+            )
+        );
+    }
+
+    @Test
+    public void testWithNullBatchesFails() {
+        assertThrows(
+            NullPointerException.class,
+            () -> FileChangeWatcher.with(
+                this.root,
+                this.patterns(),
+                WINDOW,
+                null
+            )
+        );
+    }
+
+    @Test
+    public void testCreateAndModifyCoalesced() throws Exception {
+        final Path src = Files.createDirectory(this.root.resolve("src"));
+        Files.createDirectory(this.root.resolve("ignored"));
+
+        final BlockingQueue<Map<Path, WatchEvent.Kind<Path>>> batches = new LinkedBlockingQueue<>();
+
+        try (final Closeable watcher = FileChangeWatcher.with(
+            this.root,
+            this.patterns(),
+            WINDOW,
+            batches::add
+        )) {
+            final Path file = src.resolve("file.txt");
+            Files.writeString(file, "1");
+            Files.writeString(file, "2");
+
+            Files.writeString(src.resolve("file.doc"), "ignored because of extension");
+            Files.writeString(this.root.resolve("ignored/file.txt"), "ignored because of directory");
+
+            this.checkEquals(
+                Maps.of(
+                    file,
+                    StandardWatchEventKinds.ENTRY_CREATE
+                ),
+                batches.poll(10, TimeUnit.SECONDS)
+            );
+        }
+    }
+
+    @Test
+    public void testNewDirectoryWatched() throws Exception {
+        final BlockingQueue<Map<Path, WatchEvent.Kind<Path>>> batches = new LinkedBlockingQueue<>();
+
+        try (final Closeable watcher = FileChangeWatcher.with(
+            this.root,
+            this.patterns(),
+            WINDOW,
+            batches::add
+        )) {
+            final Path src = Files.createDirectory(this.root.resolve("src"));
+            final Path file = src.resolve("file.txt");
+            Files.writeString(file, "1");
+
+            this.checkEquals(
+                Maps.of(
+                    file,
+                    StandardWatchEventKinds.ENTRY_CREATE
+                ),
+                batches.poll(10, TimeUnit.SECONDS)
+            );
+        }
+    }
+
+    @Test
+    public void testFailingConsumerKeepsWatching() throws Exception {
+        final Path src = Files.createDirectory(this.root.resolve("src"));
+
+        final BlockingQueue<Map<Path, WatchEvent.Kind<Path>>> batches = new LinkedBlockingQueue<>();
+        final BlockingQueue<Throwable> failures = new LinkedBlockingQueue<>();
+        final AtomicBoolean fail = new AtomicBoolean(true);
+
+        try (final FileChangeWatcher watcher = FileChangeWatcher.with(
+            this.root,
+            this.patterns(),
+            WINDOW,
+            (b) -> {
+                if (fail.getAndSet(false)) {
+                    Thread.currentThread()
+                        .setUncaughtExceptionHandler((t, cause) -> failures.add(cause));
+                    throw new IllegalStateException("Consumer failed");
+                }
+                batches.add(b);
+            }
+        )) {
+            Files.writeString(src.resolve("file1.txt"), "1");
+
+            this.checkEquals(
+                "Consumer failed",
+                failures.poll(10, TimeUnit.SECONDS)
+                    .getMessage(),
+                "failure reported"
+            );
+
+            final Path file2 = src.resolve("file2.txt");
+            Files.writeString(file2, "2");
+
+            this.checkEquals(
+                Maps.of(
+                    file2,
+                    StandardWatchEventKinds.ENTRY_CREATE
+                ),
+                batches.poll(10, TimeUnit.SECONDS)
+            );
+        }
+    }
+
+    // overflow.........................................................................................................
+
+    @Test
+    public void testOverflowRescans() throws Exception {
+        final Path src = Files.createDirectory(this.root.resolve("src"));
+        Files.createDirectory(this.root.resolve("ignored"));
+
+        try (final FileChangeWatcher watcher = FileChangeWatcher.with(
+            this.root,
+            this.patterns(),
+            WINDOW,
+            (b) -> {
+            }
+        )) {
+            final Path file1 = src.resolve("file1.txt");
+            Files.writeString(file1, "1");
+
+            final Path file2 = src.resolve("file2.txt");
+            Files.writeString(file2, "2");
+
+            Files.writeString(src.resolve("file.doc"), "ignored because of extension");
+            Files.writeString(this.root.resolve("ignored/file.txt"), "ignored because of directory");
+
+            // file1 was already created in this batch so remains a create
+            final Map<Path, WatchEvent.Kind<Path>> batch = Maps.sorted();
+            batch.put(
+                file1,
+                StandardWatchEventKinds.ENTRY_CREATE
+            );
+
+            watcher.overflow(batch);
+
+            this.checkEquals(
+                Maps.of(
+                    file1,
+                    StandardWatchEventKinds.ENTRY_CREATE,
+                    file2,
+                    StandardWatchEventKinds.ENTRY_MODIFY
+                ),
+                batch
+            );
+        }
+    }
+
+    @Test
+    public void testOverflowRescanSkipsDeletedDirectory() throws Exception {
+        final Map<Path, WatchEvent.Kind<Path>> expected = Maps.sorted();
+        for (int i = 0; i < 10; i++) {
+            final Path directory = this.root.resolve("dir" + i);
+            Files.createDirectories(directory.resolve("sub"));
+            Files.writeString(directory.resolve("sub/file.doc"), "ignored because of extension");
+
+            final Path file = directory.resolve("file.txt");
+            Files.writeString(file, "matched");
+
+            expected.put(
+                file,
+                StandardWatchEventKinds.ENTRY_MODIFY
+            );
+        }
+
+        // testing a file deletes its sibling sub-directory, which the rescan may not have reached yet
+        final Predicate<String> globPatterns = Files2.globPatterns(
+            "*/*.txt",
+            CaseSensitivity.SENSITIVE
+        );
+        final AtomicBoolean delete = new AtomicBoolean();
+        final Predicate<String> patterns = (p) -> {
+            if (delete.get()) {
+                final Path sub = this.root.resolve(p)
+                    .resolveSibling("sub");
+                if (Files.exists(sub)) {
+                    deleteTree(sub);
+                }
+            }
+            return globPatterns.test(p);
+        };
+
+        final Thread thread = Thread.currentThread();
+        final Thread.UncaughtExceptionHandler handler = thread.getUncaughtExceptionHandler();
+        final BlockingQueue<Throwable> failures = new LinkedBlockingQueue<>();
+
+        try (final FileChangeWatcher watcher = FileChangeWatcher.with(
+            this.root,
+            patterns,
+            WINDOW,
+            (b) -> {
+            }
+        )) {
+            thread.setUncaughtExceptionHandler((t, cause) -> failures.add(cause));
+            delete.set(true);
+
+            final Map<Path, WatchEvent.Kind<Path>> batch = Maps.sorted();
+            watcher.overflow(batch);
+
+            this.checkEquals(
+                expected,
+                batch
+            );
+            this.checkEquals(
+                null,
+                failures.poll(),
+                "failures"
+            );
+        } finally {
+            thread.setUncaughtExceptionHandler(handler);
+        }
+    }
+
+    private static void deleteTree(final Path directory) {
+        try (final Stream<Path> paths = Files.walk(directory)) {
+            paths.sorted(Comparator.reverseOrder())
+                .forEach(FileChangeWatcherTest::delete);
+        } catch (final IOException cause) {
+            throw new UncheckedIOException(cause);
+        }
+    }
+
+    private static void delete(final Path path) {
+        try {
+            Files.delete(path);
+        } catch (final IOException cause) {
+            throw new UncheckedIOException(cause);
+        }
+    }
+
+    // coalesce.........................................................................................................
+
+    @Test
+    public void testCoalesceFirst() {
+        this.coalesceAndCheck(
+            null,
+            StandardWatchEventKinds.ENTRY_MODIFY,
+            StandardWatchEventKinds.ENTRY_MODIFY
+        );
+    }
+
+    @Test
+    public void testCoalesceCreateModify() {
+        this.coalesceAndCheck(
+            StandardWatchEventKinds.ENTRY_CREATE,
+            StandardWatchEventKinds.ENTRY_MODIFY,
+            StandardWatchEventKinds.ENTRY_CREATE
+        );
+    }
+
+    @Test
+    public void testCoalesceCreateDelete() {
+        this.coalesceAndCheck(
+            StandardWatchEventKinds.ENTRY_CREATE,
+            StandardWatchEventKinds.ENTRY_DELETE,
+            null
+        );
+    }
+
+    @Test
+    public void testCoalesceDeleteCreate() {
+        this.coalesceAndCheck(
+            StandardWatchEventKinds.ENTRY_DELETE,
+            StandardWatchEventKinds.ENTRY_CREATE,
+            StandardWatchEventKinds.ENTRY_MODIFY
+        );
+    }
+
+    @Test
+    public void testCoalesceModifyModify() {
+        this.coalesceAndCheck(
+            StandardWatchEventKinds.ENTRY_MODIFY,
+            StandardWatchEventKinds.ENTRY_MODIFY,
+            StandardWatchEventKinds.ENTRY_MODIFY
+        );
+    }
+
+    @Test
+    public void testCoalesceModifyDelete() {
+        this.coalesceAndCheck(
+            StandardWatchEventKinds.ENTRY_MODIFY,
+            StandardWatchEventKinds.ENTRY_DELETE,
+            StandardWatchEventKinds.ENTRY_DELETE
+        );
+    }
+
+    private void coalesceAndCheck(final WatchEvent.Kind<Path> previous,
+                                  final WatchEvent.Kind<Path> kind,
+                                  final WatchEvent.Kind<Path> expected) {
+        final Path path = this.root.resolve("file.txt");
+
+        final Map<Path, WatchEvent.Kind<Path>> batch = Maps.sorted();
+        if (null != previous) {
+            batch.put(
+                path,
+                previous
+            );
+        }
+
+        FileChangeWatcher.coalesce(
+            batch,
+            path,
+            kind
+        );
+
+        this.checkEquals(
+            null != expected ?
+                Maps.of(
+                    path,
+                    expected
+                ) :
+                Maps.empty(),
+            batch,
+            () -> previous + " then " + kind
+        );
+    }
+
+    @Test
+    public void testToString() throws IOException {
+        try (final Closeable watcher = FileChangeWatcher.with(
+            this.root,
+            this.patterns(),
+            WINDOW,
+            (b) -> {
+            }
+        )) {
+            this.checkEquals(
+                this.root + " src/*.txt",
+                watcher.toString()
+            );
+        }
+    }
+
+    private Predicate<String> patterns() {
+        return Files2.globPatterns(
+            "src/*.txt",
+            CaseSensitivity.SENSITIVE
+        );
+    }
+
+    // ClassTesting....................................................................................................
+
+    @Override
+    public Class<FileChangeWatcher> type() {
+        return FileChangeWatcher.class;
+    }
+
+    @Override
+    public JavaVisibility typeVisibility() {
+        return JavaVisibility.PACKAGE_PRIVATE;
+    }
+}
@@ -18,17 +18,31 @@
 package walkingkooka.file;
 
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import walkingkooka.collect.list.Lists;
+import walkingkooka.collect.set.Sets;
 import walkingkooka.predicate.PredicateTesting;
+import walkingkooka.predicate.Predicates;
 import walkingkooka.reflect.JavaVisibility;
 import walkingkooka.reflect.PublicStaticHelperTesting;
 import walkingkooka.text.CaseSensitivity;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.lang.reflect.Method;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Set;
 import java.util.function.Predicate;
+import java.util.stream.Collectors;
 
 import static org.junit.jupiter.api.Assertions.assertThrows;
 
-public final class Files2Test implements PublicStaticHelperTesting<Files2>, PredicateTesting {
+public final class Files2Test implements PublicStaticHelperTesting<Files2>,
+    PredicateTesting,
+    AllocationTesting {
 
     @Test
     public void testGlobPatternsWithNullFileContentFails() {
@@ -105,6 +119,52 @@ public final class Files2Test implements PublicStaticHelperTesting<Files2>, Pred
         );
     }
 
+    @Test
+    public void testGlobPatternsWithNullEngineFails() {
+        assertThrows(
+            NullPointerException.class,
+            () -> Files2.globPatterns(
+                "",
+                CaseSensitivity.SENSITIVE,
+                null
+            )
+        );
+    }
+
+    @Test
+    public void testGlobPatternsWithPatternsRegex() {
+        final String content = "# comment 1a\n" +
+            "\n" +
+            "path-to/file/*.txt\n" +
+            "path-to/file/*.ini\n";
+
+        final Predicate<String> predicate = Files2.globPatterns(
+            content,
+            CaseSensitivity.SENSITIVE,
+            GlobPatternsEngine.REGEX
+        );
+
+        this.testTrue(
+            predicate,
+            "path-to/file/file123.txt"
+        );
+
+        this.testTrue(
+            predicate,
+            "path-to/file/file123.ini"
+        );
+
+        this.testFalse(
+            predicate,
+            "path-to/wrong/file123.txt"
+        );
+
+        this.testFalse(
+            predicate,
+            "path-to/file/file123.doc"
+        );
+    }
+
     @Test
     public void testGlobPatternToString() {
         final String content = "# comment 1a\n" +
@@ -137,6 +197,205 @@ public final class Files2Test implements PublicStaticHelperTesting<Files2>, Pred
         );
     }
 
+    @Test
+    public void testGlobPatternsAllocation() {
+        final Predicate<String> predicate = Files2.globPatterns(
+            "# comment\n" +
+                "*.txt\n" +
+                "src/**/*.java\n",
+            CaseSensitivity.INSENSITIVE
+        );
+
+        this.allocatedBytesAndCheck(
+            () -> predicate.test("src/main/java/Hello.JAVA"),
+            0
+        );
+    }
+
+    // find............................................................................................................
+
+    @TempDir
+    Path root;
+
+    @Test
+    public void testFind() throws IOException {
+        final Path match = this.createFiles();
+
+        this.checkEquals(
+            Lists.of(match),
+            Files2.find(
+                this.root,
+                Files2.globPatterns(
+                    "src/*.java",
+                    CaseSensitivity.SENSITIVE
+                )
+            ).collect(Collectors.toList())
+        );
+    }
+
+    @Test
+    public void testFindParallel() throws IOException {
+        final Set<Path> expected = Sets.sorted();
+
+        for (int i = 0; i < 10; i++) {
+            final Path file = Files.createDirectories(this.root.resolve("src/module" + i))
+                .resolve("File" + i + ".java");
+            Files.writeString(file, "");
+            expected.add(file);
+        }
+
+        this.checkEquals(
+            expected,
+            Files2.find(
+                this.root,
+                Files2.globPatterns(
+                    "src/*.java",
+                    CaseSensitivity.SENSITIVE
+                )
+            ).parallel()
+                .collect(Collectors.toCollection(Sets::sorted))
+        );
+    }
+
+    @Test
+    public void testFindWithNullVisitorsFails() {
+        assertThrows(
+            NullPointerException.class,
+            () -> Files2.find(
+                this.root,
+                Predicates.fake(),
+                null,
+                StandardCharsets.UTF_8
+            )
+        );
+    }
+
+    @Test
+    public void testFindWithNullCharsetFails() {
+        assertThrows(
+            NullPointerException.class,
+            () -> Files2.find(
+                this.root,
+                Predicates.fake(),
+                (p) -> new FakeTextFileWithCommentsVisitor(),
+                null
+            )
+        );
+    }
+
+    @Test
+    public void testFindAndVisit() throws IOException {
+        this.createFiles();
+
+        class HeaderTextFileWithCommentsVisitor extends TextFileWithCommentsVisitor {
+            @Override
+            public void visitComment(final String comment) {
+                this.header = comment;
+                this.stop();
+            }
+
+            @Override
+            public void visitNonEmptyLine(final String text) {
+                throw new UnsupportedOperationException("Should have stopped before " + text);
+            }
+
+            String header;
+        }
+
+        this.checkEquals(
+            Lists.of("header"),
+            Files2.find(
+                this.root,
+                Files2.globPatterns(
+                    "src/*.java",
+                    CaseSensitivity.SENSITIVE
+                ),
+                (p) -> new HeaderTextFileWithCommentsVisitor(),
+                StandardCharsets.UTF_8
+            ).map(v -> v.header)
+                .collect(Collectors.toList())
+        );
+    }
+
+    @Test
+    public void testFindAndVisitSkipsDeletedFile() throws IOException {
+        this.createFiles();
+
+        this.checkEquals(
+            0L,
+            Files2.find(
+                this.root,
+                Files2.globPatterns(
+                    "src/*.java",
+                    CaseSensitivity.SENSITIVE
+                ),
+                (p) -> {
+                    // deleted after it was found but before it is opened
+                    try {
+                        Files.delete(p);
+                    } catch (final IOException cause) {
+                        throw new UncheckedIOException(cause);
+                    }
+                    return new FakeTextFileWithCommentsVisitor();
+                },
+                StandardCharsets.UTF_8
+            ).count()
+        );
+    }
+
+    @Test
+    public void testFindAndVisitMalformedReplaced() throws IOException {
+        final Path match = this.createFiles();
+        Files.write(
+            match,
+            new byte[]{'#', ' ', 'c', 'a', 'f', (byte) 0xff, '\n'}
+        );
+
+        class CommentsTextFileWithCommentsVisitor extends TextFileWithCommentsVisitor {
+            @Override
+            public void visitComment(final String comment) {
+                this.comments.add(comment);
+            }
+
+            final List<String> comments = Lists.array();
+        }
+
+        this.checkEquals(
+            Lists.of(
+                Lists.of("caf\uFFFD")
+            ),
+            Files2.find(
+                this.root,
+                Files2.globPatterns(
+                    "src/*.java",
+                    CaseSensitivity.SENSITIVE
+                ),
+                (p) -> new CommentsTextFileWithCommentsVisitor(),
+                StandardCharsets.UTF_8
+            ).map(v -> v.comments)
+                .collect(Collectors.toList())
+        );
+    }
+
+    /**
+     * Creates a single matching file and several non matching files, returning the matching file.
+     */
+    private Path createFiles() throws IOException {
+        final Path src = Files.createDirectories(this.root.resolve("src/main"));
+
+        final Path match = src.resolve("Hello.java");
+        Files.writeString(match, "# header\nclass Hello {}\n");
+
+        Files.writeString(src.resolve("Hello.txt"), "");
+        Files.writeString(
+            Files.createDirectories(this.root.resolve("target"))
+                .resolve("Hello.java"),
+            ""
+        );
+
+        return match;
+    }
+
     @Override
     public Class<Files2> type() {
         return Files2.class;
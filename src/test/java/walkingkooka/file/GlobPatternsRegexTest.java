@@ -0,0 +1,141 @@
+/*
+ * Copyright 2023 Miroslav Pokorny (github.com/mP1)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package walkingkooka.file;
+
+import org.junit.jupiter.api.Test;
+import walkingkooka.reflect.ClassTesting;
+import walkingkooka.reflect.JavaVisibility;
+import walkingkooka.text.CaseSensitivity;
+
+public final class GlobPatternsRegexTest implements ClassTesting<GlobPatternsRegex> {
+
+    @Test
+    public void testNoPatterns() {
+        this.regexAndCheck(
+            "",
+            "(?!)"
+        );
+    }
+
+    @Test
+    public void testLiteral() {
+        this.regexAndCheck(
+            "README.md",
+            "README\\.md\\z"
+        );
+    }
+
+    @Test
+    public void testWildcards() {
+        this.regexAndCheck(
+            "src/?/*.java",
+            "src\\/.\\/.*\\.java\\z"
+        );
+    }
+
+    @Test
+    public void testTrailingStarPossessive() {
+        this.regexAndCheck(
+            "target/*",
+            "target\\/.*+\\z"
+        );
+    }
+
+    @Test
+    public void testEscapedStar() {
+        this.regexAndCheck(
+            "file\\*",
+            "file\\*\\z"
+        );
+    }
+
+    @Test
+    public void testCommonPrefixFactored() {
+        this.regexAndCheck(
+            "src/main/*.java\n" +
+                "src/test/*.java\n" +
+                "src/main/resources/*\n" +
+                "*.txt",
+            "(?>src\\/(?>main\\/(?>.*\\.java\\z|resources\\/.*+\\z)|test\\/.*\\.java\\z)|.*\\.txt\\z)"
+        );
+    }
+
+    @Test
+    public void testPatternPrefixOfAnother() {
+        this.regexAndCheck(
+            "src\n" +
+                "src/*",
+            "src(?>\\z|\\/.*+\\z)"
+        );
+    }
+
+    @Test
+    public void testSurrogatePairSharingHighSurrogate() {
+        this.regexAndCheck(
+            "\uD83D\uDE00\n" +
+                "\uD83D\uDE01",
+            "(?>\uD83D\uDE00\\z|\uD83D\uDE01\\z)"
+        );
+    }
+
+    @Test
+    public void testCaseInsensitiveFolded() {
+        this.regexAndCheck(
+            "README.MD",
+            CaseSensitivity.INSENSITIVE,
+            "readme\\.md\\z"
+        );
+    }
+
+    private void regexAndCheck(final String patterns,
+                               final String expected) {
+        this.regexAndCheck(
+            patterns,
+            CaseSensitivity.SENSITIVE,
+            expected
+        );
+    }
+
+    private void regexAndCheck(final String patterns,
+                               final CaseSensitivity caseSensitivity,
+                               final String expected) {
+        this.checkEquals(
+            expected,
+            GlobPatterns.parse(
+                patterns,
+                caseSensitivity,
+                GlobPatternsEngine.REGEX
+            ).regex()
+                .get()
+                .pattern(),
+            () -> "regex " + patterns
+        );
+    }
+
+    // ClassTesting....................................................................................................
+
+    @Override
+    public Class<GlobPatternsRegex> type() {
+        return GlobPatternsRegex.class;
+    }
+
+    @Override
+    public JavaVisibility typeVisibility() {
+        return JavaVisibility.PACKAGE_PRIVATE;
+    }
+}
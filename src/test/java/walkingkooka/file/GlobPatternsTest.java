@@ -0,0 +1,758 @@
+/*
+ * Copyright 2023 Miroslav Pokorny (github.com/mP1)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package walkingkooka.file;
+
+import org.junit.jupiter.api.Test;
+import walkingkooka.ToStringTesting;
+import walkingkooka.collect.list.Lists;
+import walkingkooka.predicate.PredicateTesting;
+import walkingkooka.reflect.ClassTesting;
+import walkingkooka.reflect.JavaVisibility;
+import walkingkooka.text.CaseSensitivity;
+import walkingkooka.text.CharSequences;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public final class GlobPatternsTest implements ClassTesting<GlobPatterns>,
+    PredicateTesting,
+    ToStringTesting<GlobPatterns> {
+
+    @Test
+    public void testParseWithNullFileContentFails() {
+        assertThrows(
+            NullPointerException.class,
+            () -> GlobPatterns.parse(
+                null,
+                CaseSensitivity.SENSITIVE
+            )
+        );
+    }
+
+    @Test
+    public void testParseWithNullCaseSensitivityFails() {
+        assertThrows(
+            NullPointerException.class,
+            () -> GlobPatterns.parse(
+                "",
+                null
+            )
+        );
+    }
+
+    @Test
+    public void testParseWithNullEngineFails() {
+        assertThrows(
+            NullPointerException.class,
+            () -> GlobPatterns.parse(
+                "",
+                CaseSensitivity.SENSITIVE,
+                null
+            )
+        );
+    }
+
+    @Test
+    public void testTest() {
+        final GlobPatterns patterns = GlobPatterns.parse(
+            "*.txt\nsrc/*.java",
+            CaseSensitivity.SENSITIVE
+        );
+
+        this.testTrue(
+            patterns,
+            "file.txt"
+        );
+        this.testTrue(
+            patterns,
+            "src/Hello.java"
+        );
+        this.testFalse(
+            patterns,
+            "file.doc"
+        );
+    }
+
+    @Test
+    public void testTestCaseInsensitive() {
+        final GlobPatterns patterns = GlobPatterns.parse(
+            "*.TXT\nSrc/*.java",
+            CaseSensitivity.INSENSITIVE
+        );
+
+        this.testTrue(
+            patterns,
+            "file.txt"
+        );
+        this.testTrue(
+            patterns,
+            "FILE.Txt"
+        );
+        this.testTrue(
+            patterns,
+            "SRC/Hello.JAVA"
+        );
+        this.testFalse(
+            patterns,
+            "file.doc"
+        );
+    }
+
+    @Test
+    public void testTestCaseInsensitiveNonAscii() {
+        final GlobPatterns patterns = GlobPatterns.parse(
+            "Äpfel/*.txt",
+            CaseSensitivity.INSENSITIVE
+        );
+
+        this.testTrue(
+            patterns,
+            "äPFEL/file.txt"
+        );
+        this.testFalse(
+            patterns,
+            "apfel/file.txt"
+        );
+    }
+
+    @Test
+    public void testTestCaseInsensitiveSupplementary() {
+        // DESERET CAPITAL LONG I and DESERET SMALL LONG I
+        for (final GlobPatternsEngine engine : GlobPatternsEngine.values()) {
+            final GlobPatterns patterns = GlobPatterns.parse(
+                "\uD801\uDC00/*.txt",
+                CaseSensitivity.INSENSITIVE,
+                engine
+            );
+
+            this.testTrue(
+                patterns,
+                "\uD801\uDC28/file.txt"
+            );
+            this.testTrue(
+                patterns,
+                "\uD801\uDC00/FILE.TXT"
+            );
+            this.testFalse(
+                patterns,
+                "\uD801\uDC01/file.txt"
+            );
+        }
+    }
+
+    @Test
+    public void testTestCaseSensitiveSupplementaryNotFolded() {
+        this.testFalse(
+            GlobPatterns.parse(
+                "\uD801\uDC00/*.txt",
+                CaseSensitivity.SENSITIVE
+            ),
+            "\uD801\uDC28/file.txt"
+        );
+    }
+
+    @Test
+    public void testTestCaseSensitiveNotFolded() {
+        this.testFalse(
+            GlobPatterns.parse(
+                "*.TXT",
+                CaseSensitivity.SENSITIVE
+            ),
+            "file.txt"
+        );
+    }
+
+    @Test
+    public void testTestAnyCharacter() {
+        final GlobPatterns patterns = GlobPatterns.parse(
+            "file?.txt",
+            CaseSensitivity.SENSITIVE
+        );
+
+        this.testTrue(
+            patterns,
+            "file1.txt"
+        );
+        this.testFalse(
+            patterns,
+            "file.txt"
+        );
+        this.testFalse(
+            patterns,
+            "file12.txt"
+        );
+    }
+
+    @Test
+    public void testTestEscaped() {
+        final GlobPatterns patterns = GlobPatterns.parse(
+            "file\\*.txt",
+            CaseSensitivity.SENSITIVE
+        );
+
+        this.testTrue(
+            patterns,
+            "file*.txt"
+        );
+        this.testFalse(
+            patterns,
+            "file1.txt"
+        );
+    }
+
+    @Test
+    public void testTestConsecutiveStars() {
+        final GlobPatterns patterns = GlobPatterns.parse(
+            "**/*.txt",
+            CaseSensitivity.SENSITIVE
+        );
+
+        this.testTrue(
+            patterns,
+            "dir/file.txt"
+        );
+        this.testFalse(
+            patterns,
+            "dir/file.doc"
+        );
+    }
+
+    @Test
+    public void testTestSameAsGlobPattern() {
+        this.testSameAsGlobPatternAndCheck(
+            GlobPatternsEngine.COMPILED,
+            "\uD83D\uDE00",
+            "\uD83D\uDE01",
+            "a\uD83D\uDE00b"
+        );
+    }
+
+    /**
+     * Paths outside the Basic Multilingual Plane are left out as {@link GlobPatternsEngine#REGEX} matches code points.
+     */
+    @Test
+    public void testTestRegexSameAsGlobPattern() {
+        this.testSameAsGlobPatternAndCheck(
+            GlobPatternsEngine.REGEX
+        );
+    }
+
+    private void testSameAsGlobPatternAndCheck(final GlobPatternsEngine engine,
+                                               final String... morePaths) {
+        final String[] patterns = {
+            "*",
+            "*.txt",
+            "a*b*c",
+            "a?c",
+            "a?b",
+            "a??b",
+            "*a*",
+            "**a",
+            "a\\?",
+            "src/*/test/*.java",
+            "\uD83D\uDE00",
+            "*\uD83D\uDE00*",
+        };
+        final List<String> paths = Lists.array();
+        Collections.addAll(
+            paths,
+            "",
+            "a",
+            "abc",
+            "aXbYc",
+            "a?",
+            "aa",
+            "abcabc",
+            "file.txt",
+            "FILE.TXT",
+            "src/main/test/A.java",
+            "src/main/java/A.java"
+        );
+        Collections.addAll(
+            paths,
+            morePaths
+        );
+
+        for (final CaseSensitivity caseSensitivity : CaseSensitivity.values()) {
+            for (final String pattern : patterns) {
+                final GlobPatterns globPatterns = GlobPatterns.parse(
+                    pattern,
+                    caseSensitivity,
+                    engine
+                );
+
+                for (final String path : paths) {
+                    this.checkEquals(
+                        caseSensitivity.globPattern(pattern)
+                            .test(path),
+                        globPatterns.test(path),
+                        () -> pattern + " " + caseSensitivity + " " + engine + " test " + CharSequences.quote(path)
+                    );
+                }
+            }
+        }
+    }
+
+    // regex.........................................................................................................
+
+    @Test
+    public void testRegexCompiled() {
+        this.checkEquals(
+            Optional.empty(),
+            GlobPatterns.parse(
+                "*.txt",
+                CaseSensitivity.SENSITIVE
+            ).regex()
+        );
+    }
+
+    @Test
+    public void testTestRegex() {
+        final GlobPatterns patterns = GlobPatterns.parse(
+            "src/main/*.java\n" +
+                "src/test/*.java\n" +
+                "*.TXT",
+            CaseSensitivity.INSENSITIVE,
+            GlobPatternsEngine.REGEX
+        );
+
+        this.testTrue(
+            patterns,
+            "src/main/Hello.java"
+        );
+        this.testTrue(
+            patterns,
+            "SRC/Test/Hello.java"
+        );
+        this.testTrue(
+            patterns,
+            "file.txt"
+        );
+        this.testFalse(
+            patterns,
+            "src/other/Hello.java"
+        );
+    }
+
+    @Test
+    public void testTestAnyCharacterSurrogatePairCompiled() {
+        this.testAnyCharacterSurrogatePairAndCheck(
+            GlobPatternsEngine.COMPILED,
+            false,
+            true
+        );
+    }
+
+    @Test
+    public void testTestAnyCharacterSurrogatePairRegex() {
+        this.testAnyCharacterSurrogatePairAndCheck(
+            GlobPatternsEngine.REGEX,
+            true,
+            false
+        );
+    }
+
+    private void testAnyCharacterSurrogatePairAndCheck(final GlobPatternsEngine engine,
+                                                       final boolean one,
+                                                       final boolean two) {
+        final String path = "a\uD83D\uDE00b";
+
+        this.checkEquals(
+            one,
+            GlobPatterns.parse(
+                "a?b",
+                CaseSensitivity.SENSITIVE,
+                engine
+            ).test(path),
+            "a?b"
+        );
+        this.checkEquals(
+            two,
+            GlobPatterns.parse(
+                "a??b",
+                CaseSensitivity.SENSITIVE,
+                engine
+            ).test(path),
+            "a??b"
+        );
+    }
+
+    @Test
+    public void testTestStarLowSurrogate() {
+        final String path = "\uD83D\uDE00";
+
+        this.checkEquals(
+            true,
+            GlobPatterns.parse(
+                "*\uDE00",
+                CaseSensitivity.SENSITIVE,
+                GlobPatternsEngine.COMPILED
+            ).test(path),
+            "compiled"
+        );
+        this.checkEquals(
+            false,
+            GlobPatterns.parse(
+                "*\uDE00",
+                CaseSensitivity.SENSITIVE,
+                GlobPatternsEngine.REGEX
+            ).test(path),
+            "regex"
+        );
+    }
+
+    /**
+     * Without '?' or unpaired surrogates in the patterns both engines agree.
+     */
+    @Test
+    public void testTestRegexSameAsCompiledNonBmp() {
+        final String[] contents = {
+            "\uD83D\uDE00\n\uD83D\uDE01",
+            "a*b",
+            "*",
+            "\uD83D\uDE00*",
+            "*\uD83D\uDE01",
+            "*\uD83D\uDE00*\uD83D\uDE01",
+        };
+        final String[] paths = {
+            "",
+            "ab",
+            "x",
+            "\uD83D\uDE00",
+            "\uD83D\uDE01",
+            "a\uD83D\uDE00b",
+            "\uD83D\uDE00\uD83D\uDE01",
+            "a\uD83D\uDE00\uD83D\uDE01b",
+            "\uD83D",
+        };
+
+        for (final CaseSensitivity caseSensitivity : CaseSensitivity.values()) {
+            for (final String content : contents) {
+                final GlobPatterns compiled = GlobPatterns.parse(
+                    content,
+                    caseSensitivity,
+                    GlobPatternsEngine.COMPILED
+                );
+                final GlobPatterns regex = GlobPatterns.parse(
+                    content,
+                    caseSensitivity,
+                    GlobPatternsEngine.REGEX
+                );
+
+                for (final String path : paths) {
+                    this.checkEquals(
+                        compiled.test(path),
+                        regex.test(path),
+                        () -> CharSequences.quoteAndEscape(content) + " " + caseSensitivity + " test " + CharSequences.quoteAndEscape(path)
+                    );
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testTestRegexNoPatterns() {
+        this.testFalse(
+            GlobPatterns.parse(
+                "# comment only",
+                CaseSensitivity.SENSITIVE,
+                GlobPatternsEngine.REGEX
+            ),
+            ""
+        );
+    }
+
+    // count............................................................................................................
+
+    @Test
+    public void testCount() {
+        this.checkEquals(
+            3,
+            GlobPatterns.parse(
+                "# comment\n*.txt\n\n*.ini\n*.doc",
+                CaseSensitivity.SENSITIVE
+            ).count()
+        );
+    }
+
+    // sizeOf...........................................................................................................
+
+    @Test
+    public void testSizeOf() {
+        this.checkEquals(
+            173L,
+            GlobPatterns.parse(
+                "*.txt",
+                CaseSensitivity.SENSITIVE
+            ).sizeOf()
+        );
+    }
+
+    @Test
+    public void testSizeOfBytesPerPattern() {
+        final StringBuilder content = new StringBuilder();
+        final int count = 1000;
+
+        for (int i = 0; i < count; i++) {
+            content.append("src/module-")
+                .append(i)
+                .append("/**/*.java\n");
+        }
+
+        final GlobPatterns patterns = GlobPatterns.parse(
+            content.toString(),
+            CaseSensitivity.INSENSITIVE
+        );
+        this.checkEquals(
+            count,
+            patterns.count(),
+            "count"
+        );
+
+        // patterns average 25 characters, held once as text and once as tokens
+        final long bytesPerPattern = patterns.sizeOf() / count;
+        this.checkEquals(
+            true,
+            bytesPerPattern <= 112,
+            () -> "bytes per pattern " + bytesPerPattern
+        );
+    }
+
+    // canMatchUnder....................................................................................................
+
+    @Test
+    public void testCanMatchUnderRoot() {
+        this.canMatchUnderAndCheck(
+            "src/main/*.java",
+            "",
+            true
+        );
+    }
+
+    @Test
+    public void testCanMatchUnderLiteralPrefix() {
+        this.canMatchUnderAndCheck(
+            "src/main/*.java",
+            "src",
+            true
+        );
+    }
+
+    @Test
+    public void testCanMatchUnderLiteralPrefix2() {
+        this.canMatchUnderAndCheck(
+            "src/main/*.java",
+            "src/main",
+            true
+        );
+    }
+
+    @Test
+    public void testCanMatchUnderBeyondWildcard() {
+        this.canMatchUnderAndCheck(
+            "src/*/java/*.java",
+            "src/main/java/walkingkooka",
+            true
+        );
+    }
+
+    @Test
+    public void testCanMatchUnderDifferentDirectory() {
+        this.canMatchUnderAndCheck(
+            "src/main/*.java",
+            "target",
+            false
+        );
+    }
+
+    @Test
+    public void testCanMatchUnderSimilarDirectory() {
+        this.canMatchUnderAndCheck(
+            "src/main/*.java",
+            "src/mainly",
+            false
+        );
+    }
+
+    @Test
+    public void testCanMatchUnderLeadingWildcard() {
+        this.canMatchUnderAndCheck(
+            "**/*.java",
+            "target/classes",
+            true
+        );
+    }
+
+    @Test
+    public void testCanMatchUnderLiteralPatternFile() {
+        this.canMatchUnderAndCheck(
+            "src/file.txt",
+            "src",
+            true
+        );
+    }
+
+    @Test
+    public void testCanMatchUnderLiteralPatternSameDirectory() {
+        this.canMatchUnderAndCheck(
+            "src/file.txt",
+            "src/file.txt",
+            false
+        );
+    }
+
+    @Test
+    public void testCanMatchUnderBracketsAreLiteral() {
+        this.canMatchUnderAndCheck(
+            "[abc]/x/*.java",
+            "[abc]/y",
+            false
+        );
+    }
+
+    @Test
+    public void testCanMatchUnderBracesAreLiteral() {
+        this.canMatchUnderAndCheck(
+            "{src,test}/*.java",
+            "{src,test}",
+            true
+        );
+    }
+
+    @Test
+    public void testCanMatchUnderEscape() {
+        this.canMatchUnderAndCheck(
+            "src\\*/*.java",
+            "target",
+            false
+        );
+    }
+
+    @Test
+    public void testCanMatchUnderSeveralPatterns() {
+        this.canMatchUnderAndCheck(
+            "src/*.java\ntest/*.java",
+            "test",
+            true
+        );
+    }
+
+    @Test
+    public void testCanMatchUnderCaseSensitive() {
+        this.canMatchUnderAndCheck(
+            "src/*.java",
+            CaseSensitivity.SENSITIVE,
+            "SRC",
+            false
+        );
+    }
+
+    @Test
+    public void testCanMatchUnderCaseInsensitive() {
+        this.canMatchUnderAndCheck(
+            "src/*.java",
+            CaseSensitivity.INSENSITIVE,
+            "SRC",
+            true
+        );
+    }
+
+    @Test
+    public void testCanMatchUnderCaseInsensitiveSupplementary() {
+        this.canMatchUnderAndCheck(
+            "\uD801\uDC00/*.java",
+            CaseSensitivity.INSENSITIVE,
+            "\uD801\uDC28",
+            true
+        );
+    }
+
+    @Test
+    public void testCanMatchUnderCaseInsensitiveSupplementaryDifferent() {
+        this.canMatchUnderAndCheck(
+            "\uD801\uDC00/*.java",
+            CaseSensitivity.INSENSITIVE,
+            "\uD801\uDC29",
+            false
+        );
+    }
+
+    private void canMatchUnderAndCheck(final String patterns,
+                                       final String directory,
+                                       final boolean expected) {
+        this.canMatchUnderAndCheck(
+            patterns,
+            CaseSensitivity.SENSITIVE,
+            directory,
+            expected
+        );
+    }
+
+    private void canMatchUnderAndCheck(final String patterns,
+                                       final CaseSensitivity caseSensitivity,
+                                       final String directory,
+                                       final boolean expected) {
+        this.checkEquals(
+            expected,
+            GlobPatterns.parse(
+                patterns,
+                caseSensitivity
+            ).canMatchUnder(directory),
+            () -> patterns + " canMatchUnder " + directory
+        );
+    }
+
+    // toString........................................................................................................
+
+    @Test
+    public void testToString() {
+        this.toStringAndCheck(
+            GlobPatterns.parse(
+                "*.txt\n*.ini",
+                CaseSensitivity.SENSITIVE
+            ),
+            "*.txt | *.ini"
+        );
+    }
+
+    @Test
+    public void testToStringCaseInsensitive() {
+        this.toStringAndCheck(
+            GlobPatterns.parse(
+                "*.txt\n*.ini",
+                CaseSensitivity.INSENSITIVE
+            ),
+            "*.txt | *.ini (INSENSITIVE)"
+        );
+    }
+
+    // ClassTesting....................................................................................................
+
+    @Override
+    public Class<GlobPatterns> type() {
+        return GlobPatterns.class;
+    }
+
+    @Override
+    public JavaVisibility typeVisibility() {
+        return JavaVisibility.PACKAGE_PRIVATE;
+    }
+}
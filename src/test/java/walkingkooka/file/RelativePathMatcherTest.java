@@ -24,11 +24,14 @@ import walkingkooka.reflect.ClassTesting;
 import walkingkooka.reflect.JavaVisibility;
 import walkingkooka.text.CaseSensitivity;
 
+import java.nio.file.Path;
 import java.nio.file.Paths;
 
 import static org.junit.jupiter.api.Assertions.assertThrows;
 
-public final class RelativePathMatcherTest implements ClassTesting<RelativePathMatcher>, ToStringTesting<RelativePathMatcher> {
+public final class RelativePathMatcherTest implements ClassTesting<RelativePathMatcher>,
+    ToStringTesting<RelativePathMatcher>,
+    AllocationTesting {
 
     @Test
     public void testWithNullPredicateFails() {
@@ -129,6 +132,25 @@ public final class RelativePathMatcherTest implements ClassTesting<RelativePathM
         );
     }
 
+    // allocation......................................................................................................
+
+    @Test
+    public void testMatchesAllocation() {
+        final RelativePathMatcher matcher = RelativePathMatcher.with(
+            Files2.globPatterns(
+                "*.txt\n**/*.java",
+                CaseSensitivity.SENSITIVE
+            ),
+            Paths.get("/var/home")
+        );
+        final Path path = Paths.get("/var/home/src/main/Hello.java");
+
+        this.allocatedBytesAndCheck(
+            () -> matcher.matches(path),
+            0
+        );
+    }
+
     // toString........................................................................................................
 
     @Test
@@ -24,10 +24,17 @@ import walkingkooka.visit.Visiting;
 import walkingkooka.visit.Visitor;
 import walkingkooka.visit.VisitorTesting;
 
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
 import java.util.List;
 import java.util.concurrent.atomic.AtomicInteger;
 
-public final class TextFileWithCommentsVisitorTest implements VisitorTesting<TextFileWithCommentsVisitor, String> {
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public final class TextFileWithCommentsVisitorTest implements VisitorTesting<TextFileWithCommentsVisitor, String>,
+    AllocationTesting {
 
     @Test
     public void testSkipped() {
@@ -194,6 +201,203 @@ public final class TextFileWithCommentsVisitorTest implements VisitorTesting<Tex
         );
     }
 
+    // stop............................................................................................................
+
+    @Test
+    public void testStopDuringStartVisitLine() {
+        final List<String> lines = Lists.array();
+
+        new FakeTextFileWithCommentsVisitor() {
+            @Override
+            public Visiting startVisitLine(final String line) {
+                lines.add(line);
+                this.stop();
+                return Visiting.CONTINUE;
+            }
+
+            @Override
+            public void endVisitLine(final String line) {
+                lines.add("end " + line);
+            }
+
+            @Override
+            public void visitNonEmptyLine(final String text) {
+                throw new UnsupportedOperationException();
+            }
+        }.accept(
+            "line-1\nline-2\nline-3"
+        );
+
+        this.checkEquals(
+            Lists.of(
+                "line-1",
+                "end line-1"
+            ),
+            lines
+        );
+    }
+
+    @Test
+    public void testStopDuringVisitComment() {
+        final List<String> comments = Lists.array();
+        final List<String> nonEmptyLines = Lists.array();
+
+        new TextFileWithCommentsVisitor() {
+            @Override
+            public void visitComment(final String comment) {
+                comments.add(comment);
+                if (comment.startsWith("marker")) {
+                    this.stop();
+                }
+            }
+
+            @Override
+            public void visitNonEmptyLine(final String text) {
+                nonEmptyLines.add(text);
+            }
+        }.accept(
+            "line-1\n" +
+                "# comment-1\n" +
+                "# marker\n" +
+                "line-2\n" +
+                "# comment-2\n"
+        );
+
+        this.checkEquals(
+            Lists.of(
+                "comment-1",
+                "marker"
+            ),
+            comments,
+            "comments"
+        );
+        this.checkEquals(
+            Lists.of(
+                "line-1"
+            ),
+            nonEmptyLines,
+            "nonEmptyLines"
+        );
+    }
+
+    @Test
+    public void testAcceptAgainAfterStop() {
+        final List<String> lines = Lists.array();
+
+        final TextFileWithCommentsVisitor visitor = new TextFileWithCommentsVisitor() {
+            @Override
+            public void visitNonEmptyLine(final String text) {
+                lines.add(text);
+                this.stop();
+            }
+        };
+
+        visitor.accept("line-1\nline-2");
+        visitor.accept("line-3\nline-4");
+
+        this.checkEquals(
+            Lists.of(
+                "line-1",
+                "line-3"
+            ),
+            lines
+        );
+    }
+
+    // accept Reader....................................................................................................
+
+    @Test
+    public void testAcceptReaderWithNullFails() {
+        assertThrows(
+            NullPointerException.class,
+            () -> new FakeTextFileWithCommentsVisitor()
+                .accept((Reader) null)
+        );
+    }
+
+    @Test
+    public void testAcceptReader() throws IOException {
+        final List<String> nonEmptyLines = Lists.array();
+
+        new TextFileWithCommentsVisitor() {
+            @Override
+            public void visitNonEmptyLine(final String text) {
+                nonEmptyLines.add(text);
+            }
+        }.accept(
+            new StringReader("# comment\nline-1\n\nline-2")
+        );
+
+        this.checkEquals(
+            Lists.of(
+                "line-1",
+                "line-2"
+            ),
+            nonEmptyLines
+        );
+    }
+
+    @Test
+    public void testAcceptReaderStopLeavesRemainingUnread() throws IOException {
+        final BufferedReader reader = new BufferedReader(
+            new StringReader("# header\nline-1\nline-2")
+        );
+
+        new TextFileWithCommentsVisitor() {
+            @Override
+            public void visitComment(final String comment) {
+                this.stop();
+            }
+        }.accept(reader);
+
+        this.checkEquals(
+            "line-1",
+            reader.readLine()
+        );
+    }
+
+    @Test
+    public void testAcceptReaderNotBufferedStops() throws IOException {
+        final List<String> lines = Lists.array();
+
+        new TextFileWithCommentsVisitor() {
+            @Override
+            public void visitComment(final String comment) {
+                lines.add(comment);
+                this.stop();
+            }
+
+            @Override
+            public void visitNonEmptyLine(final String text) {
+                lines.add(text);
+            }
+        }.accept(
+            new StringReader("line-1\n# header\nline-2")
+        );
+
+        this.checkEquals(
+            Lists.of(
+                "line-1",
+                "header"
+            ),
+            lines
+        );
+    }
+
+    // allocation......................................................................................................
+
+    @Test
+    public void testAcceptAllocation() {
+        final TextFileWithCommentsVisitor visitor = new TextFileWithCommentsVisitor() {
+        };
+
+        // only the line and trimmed comment strings should be created
+        this.allocatedBytesAndCheck(
+            () -> visitor.accept("# comment\n\nline-1\nline-2\n"),
+            256
+        );
+    }
+
     @Override
     public void testCheckToStringOverridden() {
         throw new UnsupportedOperationException();